@@ -4,14 +4,14 @@ import com.crschnick.pdxu.app.savegame.SavegameFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CacheManager {
 
     private static final Logger logger = LoggerFactory.getLogger(CacheManager.class);
     private static CacheManager INSTANCE;
-    private final Map<Class<? extends Cache>, Cache> caches = new HashMap<>();
+    private final Map<Class<? extends Cache>, Cache> caches = new ConcurrentHashMap<>();
 
     public static void init() {
         INSTANCE = new CacheManager();
@@ -49,13 +49,13 @@ public class CacheManager {
         var sc = SavegameManagerState.get().globalSelectedCollectionProperty().get();
 
         try {
-            if (caches.containsKey(clazz)) {
-                return (T) caches.get(clazz);
-            } else {
-                var cache = (T) clazz.getConstructors()[0].newInstance();
-                caches.put(clazz, cache);
-                return cache;
-            }
+            return (T) caches.computeIfAbsent(clazz, c -> {
+                try {
+                    return (Cache) c.getConstructors()[0].newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
         } catch (Exception e) {
             ErrorHandler.handleException(e);
             return null;
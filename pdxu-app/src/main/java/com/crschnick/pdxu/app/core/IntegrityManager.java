@@ -1,6 +1,7 @@
 package com.crschnick.pdxu.app.core;
 
 import com.crschnick.pdxu.app.installation.Game;
+import com.crschnick.pdxu.io.savegame.ContentHash;
 import com.crschnick.pdxu.io.savegame.SavegameType;
 import com.crschnick.pdxu.model.SavegameInfo;
 import org.slf4j.Logger;
@@ -8,11 +9,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URI;
-import java.nio.ByteBuffer;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -58,7 +57,7 @@ public class IntegrityManager {
     }
 
     private static String calc(Path ioPackage, Path modelPackage, String game) throws Exception {
-        MessageDigest d = MessageDigest.getInstance("MD5");
+        ContentHash d = new ContentHash();
         update(d, ioPackage.resolve("parser"));
         update(d, ioPackage.resolve("savegame"));
         update(d, ioPackage.resolve("node"));
@@ -69,34 +68,24 @@ public class IntegrityManager {
         try {
             var exec = PdxuInstallation.getInstance().getRakalyExecutable();
             if (Files.exists(exec)) {
-                d.update(Files.readAllBytes(exec));
+                d.update(exec);
             }
         } catch (IOException ex) {
             ErrorHandler.handleException(ex);
         }
-        return checksum(d);
+        return d.digest();
     }
 
-    private static void update(MessageDigest d, Path pack) throws IOException {
+    private static void update(ContentHash d, Path pack) throws IOException {
         Files.list(pack).filter(Files::isRegularFile).forEach(p -> {
             try {
-                d.update(Files.readAllBytes(p));
+                d.update(p);
             } catch (IOException e) {
                 ErrorHandler.handleException(e);
             }
         });
     }
 
-    private static String checksum(MessageDigest d) {
-        StringBuilder c = new StringBuilder();
-        ByteBuffer b = ByteBuffer.wrap(d.digest());
-        for (int i = 0; i < 16; i++) {
-            var hex = String.format("%02x", b.get());
-            c.append(hex);
-        }
-        return c.toString();
-    }
-
     public static IntegrityManager getInstance() {
         return INSTANCE;
     }
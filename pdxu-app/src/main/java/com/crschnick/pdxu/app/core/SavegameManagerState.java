@@ -14,8 +14,11 @@ import javafx.collections.SetChangeListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
 public class SavegameManagerState<T, I extends SavegameInfo<T>> {
@@ -34,6 +37,7 @@ public class SavegameManagerState<T, I extends SavegameInfo<T>> {
     private final ListProperty<SavegameEntry<T, I>> shownEntries = new SimpleListProperty<>(
             FXCollections.observableList(new CopyOnWriteArrayList<>()));
     private final BooleanProperty storageEmpty = new SimpleBooleanProperty();
+    private final List<Future<?>> entryLoads = new ArrayList<>();
 
     private SavegameManagerState() {
         addShownContentChangeListeners();
@@ -87,6 +91,7 @@ public class SavegameManagerState<T, I extends SavegameInfo<T>> {
         globalSelectedCollection.addListener((c, o, n) -> {
             if (o != null) {
                 o.getSavegames().removeListener(cl);
+                cancelEntryLoads();
                 unloadCollectionAsync(o);
             }
 
@@ -124,21 +129,51 @@ public class SavegameManagerState<T, I extends SavegameInfo<T>> {
     }
 
     public void loadEntryAsync(SavegameEntry<T, I> e) {
-        TaskExecutor.getInstance().submitTask(() -> SavegameContext.withSavegame(e, ctx -> {
-            if (globalSelectedCampaignPropertyInternal().get() != null &&
-                    globalSelectedCampaignPropertyInternal().get().equals(
-                            ctx.getStorage().getSavegameCollection(e))) {
-
-                ctx.getStorage().loadEntry(e);
+        var future = TaskExecutor.getInstance().submitTask(TaskExecutor.Lane.BACKGROUND, () -> SavegameContext.withSavegame(e, ctx -> {
+            // Check the selection while holding the entry lock, like the unload does.
+            // Otherwise, the collection might be deselected and unloaded before the entry is loaded
+            e.getLock().lock();
+            try {
+                if (globalSelectedCampaignPropertyInternal().get() != null &&
+                        globalSelectedCampaignPropertyInternal().get().equals(
+                                ctx.getStorage().getSavegameCollection(e))) {
+
+                    ctx.getStorage().loadEntry(e);
+                }
+            } finally {
+                e.getLock().unlock();
             }
         }), false);
+        synchronized (entryLoads) {
+            entryLoads.removeIf(Future::isDone);
+            entryLoads.add(future);
+        }
+    }
+
+    private void cancelEntryLoads() {
+        synchronized (entryLoads) {
+            // Entries that are shown again are loaded again, so only loads that have not started yet are cancelled
+            entryLoads.forEach(f -> f.cancel(false));
+            entryLoads.clear();
+        }
     }
 
     public void unloadCollectionAsync(SavegameCollection<T, I> col) {
-        TaskExecutor.getInstance().submitTask(() -> {
+        TaskExecutor.getInstance().submitTask(TaskExecutor.Lane.MAINTENANCE, () -> {
             logger.debug("Unloading collection " + col.getName());
             for (var e : col.getSavegames()) {
-                e.unload();
+                // Entry loads run in another lane, so the collection might already be selected and loaded again.
+                // Checking while holding the entry lock ensures that a load either waits or is not unloaded
+                e.getLock().lock();
+                try {
+                    if (col.equals(globalSelectedCollection.get())) {
+                        logger.debug("Collection " + col.getName() + " is selected again. Stopping unload ...");
+                        return;
+                    }
+                    e.unload();
+                } finally {
+                    e.getLock().unlock();
+                }
             }
         }, false);
     }
@@ -5,19 +5,45 @@ import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
+/**
+ * Runs tasks in separate lanes, so that long running background work does not delay interactive tasks.
+ * Tasks of the interactive and maintenance lanes are executed one after another in the order they were submitted.
+ * Every submitted task returns a future, which can be used to cancel it if it is not needed anymore.
+ */
 public class TaskExecutor {
 
+    public enum Lane {
+        /**
+         * Tasks that the user waits for, e.g. changing the selection. This is the default lane.
+         */
+        INTERACTIVE,
+        /**
+         * Parsing and I/O that may run concurrently to each other, e.g. loading savegame entries.
+         */
+        BACKGROUND,
+        /**
+         * Cleanup work with low priority, e.g. unloading entries or deleting files.
+         */
+        MAINTENANCE
+    }
+
     private static final TaskExecutor INSTANCE = new TaskExecutor();
+    private final Map<Lane, LaneState> lanes = new EnumMap<>(Lane.class);
     private final BooleanProperty busy = new SimpleBooleanProperty(false);
-    private boolean active = false;
-    private ExecutorService executorService;
-    private Thread thread;
+    private final ThreadLocal<Lane> currentLane = new ThreadLocal<>();
+    private volatile boolean active = false;
+
+    private TaskExecutor() {
+        for (var lane : Lane.values()) {
+            lanes.put(lane, new LaneState());
+        }
+    }
 
     public static TaskExecutor getInstance() {
         return INSTANCE;
@@ -25,18 +51,31 @@ public class TaskExecutor {
 
     public void start() {
         active = true;
-        executorService = Executors.newSingleThreadExecutor(
-                r -> {
-                    thread = ThreadHelper.create("Task Executor", false, r);
-                    return thread;
-                });
+        lanes.get(Lane.INTERACTIVE).executorService = createExecutor(Lane.INTERACTIVE, "Task Executor", 1, Thread.NORM_PRIORITY);
+        lanes.get(Lane.BACKGROUND).executorService = createExecutor(Lane.BACKGROUND, "Background Task Executor",
+                Math.max(2, Runtime.getRuntime().availableProcessors()), Thread.NORM_PRIORITY);
+        lanes.get(Lane.MAINTENANCE).executorService = createExecutor(Lane.MAINTENANCE, "Maintenance Task Executor", 1, Thread.MIN_PRIORITY);
+    }
+
+    private ExecutorService createExecutor(Lane lane, String name, int threads, int priority) {
+        var count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            var t = ThreadHelper.create(threads > 1 ? name + " " + count.getAndIncrement() : name, false, () -> {
+                currentLane.set(lane);
+                r.run();
+            });
+            t.setPriority(priority);
+            return t;
+        });
     }
 
     public void stopAndWait() {
         stop(null);
         try {
             // Should terminate fast
-            executorService.awaitTermination(10, TimeUnit.DAYS);
+            for (var lane : lanes.values()) {
+                lane.executorService.awaitTermination(10, TimeUnit.DAYS);
+            }
             LoggerFactory.getLogger(TaskExecutor.class).debug("Task executor stopped");
         } catch (InterruptedException e) {
             ErrorHandler.handleException(e);
@@ -49,63 +88,113 @@ public class TaskExecutor {
         active = false;
 
         LoggerFactory.getLogger(TaskExecutor.class).debug("Waiting for tasks to finish ...");
-        executorService.submit(() -> {
+        lanes.get(Lane.BACKGROUND).executorService.shutdown();
+        lanes.get(Lane.MAINTENANCE).executorService.shutdown();
+        var interactive = lanes.get(Lane.INTERACTIVE).executorService;
+        interactive.submit(() -> {
+            // Running background tasks are not interrupted, so wait for them before finalizing
+            try {
+                lanes.get(Lane.BACKGROUND).executorService.awaitTermination(10, TimeUnit.DAYS);
+                lanes.get(Lane.MAINTENANCE).executorService.awaitTermination(10, TimeUnit.DAYS);
+            } catch (InterruptedException e) {
+                ErrorHandler.handleException(e);
+            }
+
             LoggerFactory.getLogger(TaskExecutor.class).debug("Performing finalizing task");
             if (finalize != null) finalize.run();
             LoggerFactory.getLogger(TaskExecutor.class).debug("Task executor finished");
         });
-        executorService.shutdown();
+        interactive.shutdown();
     }
 
+    /**
+     * Runs the task directly if the current thread belongs to the interactive lane and submits it to that lane otherwise.
+     * Tasks of other lanes can run concurrently, so they always submit the task.
+     */
     public void submitOrRun(Runnable r) {
-        if (Thread.currentThread().equals(thread)) {
+        if (currentLane.get() == Lane.INTERACTIVE) {
             r.run();
         } else {
             submitTask(r, false);
         }
     }
 
-    public void submitTask(Runnable r, boolean isBlocking) {
-        submitTask(() -> {
+    public Future<?> submitTask(Runnable r, boolean isBlocking) {
+        return submitTask(Lane.INTERACTIVE, r, isBlocking);
+    }
+
+    public Future<?> submitTask(Lane lane, Runnable r, boolean isBlocking) {
+        return submitTask(lane, () -> {
             r.run();
             return null;
         }, v -> {
         }, isBlocking);
     }
 
-    public <T> void submitTask(Callable<T> r, Consumer<T> onFinish, boolean isBlocking) {
-        if (executorService.isShutdown()) {
-            return;
+    public <T> Future<T> submitTask(Callable<T> r, Consumer<T> onFinish, boolean isBlocking) {
+        return submitTask(Lane.INTERACTIVE, r, onFinish, isBlocking);
+    }
+
+    /**
+     * Submits a task to a lane. A blocking task marks its lane as busy while it is running.
+     * If the returned future is cancelled before the task has started, the task is not executed at all.
+     */
+    public <T> Future<T> submitTask(Lane lane, Callable<T> r, Consumer<T> onFinish, boolean isBlocking) {
+        var state = lanes.get(lane);
+        if (state.executorService.isShutdown()) {
+            var cancelled = new CompletableFuture<T>();
+            cancelled.cancel(false);
+            return cancelled;
         }
 
-        executorService.submit(() -> {
+        return state.executorService.submit(() -> {
             if (!active) {
-                return;
+                return null;
             }
 
             if (isBlocking) {
-                busy.setValue(true);
+                updateBusy(state, 1);
             }
             try {
                 T v = r.call();
                 onFinish.accept(v);
+                return v;
             } catch (Exception e) {
                 ErrorHandler.handleException(e);
+                return null;
+            } finally {
+                if (isBlocking) {
+                    updateBusy(state, -1);
+                }
             }
-
-
-            if (isBlocking) {
-                busy.setValue(false);
-            }
-            ThreadHelper.sleep(50);
         });
     }
 
+    private synchronized void updateBusy(LaneState state, int change) {
+        state.blockingTasks += change;
+        state.busy.setValue(state.blockingTasks > 0);
+        busy.setValue(lanes.values().stream().anyMatch(l -> l.blockingTasks > 0));
+    }
+
     public boolean isBusy() {
         return busy.get();
     }
 
+    /**
+     * Returns whether a blocking task is running in any lane.
+     */
     public BooleanProperty busyProperty() {
         return busy;
     }
+
+    public BooleanProperty busyProperty(Lane lane) {
+        return lanes.get(lane).busy;
+    }
+
+    private static final class LaneState {
+
+        private final BooleanProperty busy = new SimpleBooleanProperty(false);
+        private ExecutorService executorService;
+        private int blockingTasks;
+    }
 }
@@ -159,7 +159,7 @@ public abstract class FileImportTarget {
 
         @Override
         public void delete() {
-            TaskExecutor.getInstance().submitTask(() -> {
+            TaskExecutor.getInstance().submitTask(TaskExecutor.Lane.MAINTENANCE, () -> {
                 if (!Files.exists(downloadedFile)) {
                     return;
                 }
@@ -233,9 +233,20 @@ public abstract class FileImportTarget {
             }, true);
         }
 
+        /**
+         * Creates the import of this target for an {@link ImportPipeline} or returns null if the file no longer exists.
+         */
+        SavegameStorage<?, ?>.ImportJob createImportJob() {
+            if (!Files.exists(path)) {
+                return null;
+            }
+
+            return savegameStorage.createImportJob(path, null, true, getSourceFileChecksum(), null);
+        }
+
         @Override
         public void delete() {
-            TaskExecutor.getInstance().submitTask(() -> {
+            TaskExecutor.getInstance().submitTask(TaskExecutor.Lane.MAINTENANCE, () -> {
                 if (!Files.exists(path)) {
                     return;
                 }
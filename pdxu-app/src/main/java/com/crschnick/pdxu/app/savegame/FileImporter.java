@@ -15,6 +15,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.WatchEvent;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
@@ -90,8 +91,8 @@ public class FileImporter {
     }
 
     public static void importTargets(Collection<? extends FileImportTarget> targets) {
-        Map<FileImportTarget, SavegameParseResult> statusMap = new HashMap<>();
-        targets.forEach(t -> t.importTarget(s -> {
+        Map<FileImportTarget, SavegameParseResult> statusMap = new ConcurrentHashMap<>();
+        BiConsumer<FileImportTarget, Optional<SavegameParseResult>> onFinish = (t, s) -> {
             // Only save non success results
             s.ifPresent(result -> {
                 statusMap.put(t, result);
@@ -101,22 +102,40 @@ public class FileImporter {
                 logger.debug("Deleting import target " + t.getName());
                 t.delete();
             }
-        }));
-        TaskExecutor.getInstance().submitTask(
-                () -> {
-                    // Report errors
-                    statusMap.entrySet().stream()
-                            .filter(e -> e.getValue() instanceof SavegameParseResult.Error)
-                            .findFirst()
-                            .ifPresent(e -> {
-                                ErrorHandler.handleException(
-                                        ((SavegameParseResult.Error) e.getValue()).error,
-                                        null,
-                                        e.getKey().getPath());
-                            });
-
-                    Platform.runLater(() -> GuiImporter.showResultDialog(statusMap));
-                }, false);
+        };
+
+        // Standard targets are imported concurrently, all others one after another
+        List<FileImportTarget.StandardImportTarget> standardTargets = new ArrayList<>();
+        for (var t : targets) {
+            if (t instanceof FileImportTarget.StandardImportTarget st) {
+                standardTargets.add(st);
+            } else {
+                t.importTarget(s -> onFinish.accept(t, s));
+            }
+        }
+        // The pipeline does not block interactive tasks. The other targets were already submitted to the
+        // interactive lane, so the report is submitted there once the pipeline has finished
+        TaskExecutor.getInstance().submitTask(TaskExecutor.Lane.BACKGROUND, () -> {
+            try {
+                ImportPipeline.importTargets(standardTargets, onFinish);
+            } finally {
+                TaskExecutor.getInstance().submitTask(
+                        () -> {
+                            // Report errors
+                            statusMap.entrySet().stream()
+                                    .filter(e -> e.getValue() instanceof SavegameParseResult.Error)
+                                    .findFirst()
+                                    .ifPresent(e -> {
+                                        ErrorHandler.handleException(
+                                                ((SavegameParseResult.Error) e.getValue()).error,
+                                                null,
+                                                e.getKey().getPath());
+                                    });
+
+                            Platform.runLater(() -> GuiImporter.showResultDialog(statusMap));
+                        }, false);
+            }
+        }, true);
     }
 
     public static void addToImportQueue(String toImport) {
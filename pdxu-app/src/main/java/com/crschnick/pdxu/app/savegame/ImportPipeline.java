@@ -0,0 +1,208 @@
+package com.crschnick.pdxu.app.savegame;
+
+import com.crschnick.pdxu.app.core.ErrorHandler;
+import com.crschnick.pdxu.app.util.ThreadHelper;
+import com.crschnick.pdxu.io.savegame.SavegameParseResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Imports multiple savegames concurrently. Every import passes through the stages reading, hashing, melting,
+ * parsing and info extraction, which each have their own worker threads.
+ * The stages are connected by small bounded queues, so a slow stage blocks the previous ones
+ * instead of letting read savegames pile up in memory.
+ * The imported savegames are persisted on the calling thread in the order of the targets.
+ * Since finished savegames wait there for all previous ones, the number of savegames in the pipeline is limited as well.
+ */
+public final class ImportPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportPipeline.class);
+
+    private static final int QUEUE_CAPACITY = 2;
+    private static final long PARSE_MEMORY_ESTIMATE = 512L * 1024 * 1024;
+    private static final Object END = new Object();
+
+    public static void importTargets(
+            List<? extends FileImportTarget.StandardImportTarget> targets,
+            BiConsumer<FileImportTarget, Optional<SavegameParseResult>> onFinish) {
+        if (targets.size() == 0) {
+            return;
+        }
+
+        new ImportPipeline(targets.size()).run(targets, onFinish);
+    }
+
+    private final List<Stage> stages;
+    private final Semaphore inFlight;
+
+    private ImportPipeline(int targetCount) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int parsers = (int) Math.max(1, Math.min(cores, Runtime.getRuntime().maxMemory() / PARSE_MEMORY_ESTIMATE));
+        this.stages = List.of(
+                new Stage("Read", Math.min(2, targetCount), Item::read),
+                new Stage("Hash", Math.min(cores, targetCount), Item::hash),
+                new Stage("Melt", Math.min(Math.max(1, cores / 2), targetCount), Item::melt),
+                new Stage("Parse", Math.min(parsers, targetCount), Item::parse),
+                new Stage("Info", Math.min(cores, targetCount), Item::extractInfo));
+        this.inFlight = new Semaphore(stages.stream().mapToInt(s -> s.workers).sum() + QUEUE_CAPACITY);
+    }
+
+    private void run(List<? extends FileImportTarget.StandardImportTarget> targets,
+                     BiConsumer<FileImportTarget, Optional<SavegameParseResult>> onFinish) {
+        var output = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        for (int i = 0; i < stages.size(); i++) {
+            stages.get(i).start(i < stages.size() - 1 ? stages.get(i + 1).queue : output);
+        }
+
+        var feeder = ThreadHelper.create("Import feeder", true, () -> {
+            try {
+                for (int i = 0; i < targets.size(); i++) {
+                    inFlight.acquire();
+                    stages.get(0).queue.put(new Item(i, targets.get(i)));
+                }
+                stages.get(0).queue.put(END);
+            } catch (InterruptedException e) {
+                ErrorHandler.handleException(e);
+            }
+        });
+        feeder.start();
+
+        // Items can overtake each other in stages with multiple workers
+        Map<Integer, Item> finished = new HashMap<>();
+        Set<SavegameStorage<?, ?>> storages = new HashSet<>();
+        int next = 0;
+        try {
+            while (next < targets.size()) {
+                var o = output.take();
+                if (o == END) {
+                    break;
+                }
+
+                var item = (Item) o;
+                finished.put(item.index, item);
+                while (finished.containsKey(next)) {
+                    var i = finished.remove(next++);
+                    if (i.job != null) {
+                        i.job.persist();
+                        storages.add(i.job.getStorage());
+                    }
+                    onFinish.accept(i.target, i.job != null ? i.job.getResult() : Optional.empty());
+                    inFlight.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            ErrorHandler.handleException(e);
+        } finally {
+            storages.forEach(SavegameStorage::saveData);
+        }
+    }
+
+    private static final class Item {
+
+        private final int index;
+        private final FileImportTarget.StandardImportTarget target;
+        private SavegameStorage<?, ?>.ImportJob job;
+
+        private Item(int index, FileImportTarget.StandardImportTarget target) {
+            this.index = index;
+            this.target = target;
+        }
+
+        private void read() {
+            // The file might no longer exist, since the import was started asynchronously
+            job = target.createImportJob();
+            if (job != null) {
+                job.read();
+            }
+        }
+
+        private void hash() {
+            if (job != null) {
+                job.hash();
+            }
+        }
+
+        private void melt() {
+            if (job != null) {
+                job.melt();
+            }
+        }
+
+        private void parse() {
+            if (job != null) {
+                job.parse();
+            }
+        }
+
+        private void extractInfo() {
+            if (job != null) {
+                job.extractInfo();
+            }
+        }
+
+        private void fail(Throwable t) {
+            if (job != null) {
+                job.fail(t);
+            } else {
+                ErrorHandler.handleException(t);
+            }
+        }
+    }
+
+    private static final class Stage {
+
+        private final String name;
+        private final int workers;
+        private final Consumer<Item> action;
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicInteger running = new AtomicInteger();
+
+        private Stage(String name, int workers, Consumer<Item> action) {
+            this.name = name;
+            this.workers = workers;
+            this.action = action;
+        }
+
+        private void start(BlockingQueue<Object> next) {
+            logger.debug("Starting import stage " + name + " with " + workers + " workers");
+            running.set(workers);
+            for (int i = 0; i < workers; i++) {
+                ThreadHelper.create("Import " + name + " " + i, true, () -> work(next)).start();
+            }
+        }
+
+        private void work(BlockingQueue<Object> next) {
+            try {
+                while (true) {
+                    var o = queue.take();
+                    if (o == END) {
+                        // Let the other workers of this stage see the end as well
+                        queue.put(END);
+                        if (running.decrementAndGet() == 0) {
+                            next.put(END);
+                        }
+                        return;
+                    }
+
+                    var item = (Item) o;
+                    try {
+                        action.accept(item);
+                    } catch (Throwable t) {
+                        item.fail(t);
+                    }
+                    next.put(item);
+                }
+            } catch (InterruptedException e) {
+                ErrorHandler.handleException(e);
+            }
+        }
+    }
+}
@@ -79,11 +79,12 @@ public class SavegameActions {
             var type = SavegameStorage.get(g).getType();
             var file = savegames.get(0).path;
             var bytes = Files.readAllBytes(file);
-            if (type.isBinary(bytes)) {
-                bytes = RakalyHelper.toPlaintext(file);
+            var probe = type.probe(bytes);
+            if (probe.binary()) {
+                r = RakalyHelper.parseBinary(type, file, bytes, SavegameStorage.get(g).getInfoProjection());
+            } else {
+                r = probe.structure().parse(bytes, SavegameStorage.get(g).getInfoProjection());
             }
-            var struc = type.determineStructure(bytes);
-            r = struc.parse(bytes);
         } catch (Exception e) {
             ErrorHandler.handleException(e);
         }
@@ -193,7 +194,7 @@ public class SavegameActions {
     }
 
     public static <T, I extends SavegameInfo<T>> void reloadSavegame(SavegameEntry<T, I> e) {
-        TaskExecutor.getInstance().submitTask(() -> {
+        TaskExecutor.getInstance().submitTask(TaskExecutor.Lane.BACKGROUND, () -> {
             SavegameContext.withSavegame(e, ctx -> {
                 LoggerFactory.getLogger(SavegameActions.class).debug("Reloading savegame");
                 e.unload();
@@ -7,23 +7,35 @@ import javafx.beans.property.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 
 public final class SavegameEntry<T, I extends SavegameInfo<T>> implements Comparable<SavegameEntry<T, I>> {
 
+    /**
+     * The content checksum of entries that were imported by older versions is an MD5 hash.
+     * These checksums are replaced in the background after the start. Until then, the storage also detects
+     * duplicates of such entries by their MD5 checksum.
+     */
+    public static final int MD5_CHECKSUM = 1;
+    public static final int CONTENT_HASH_CHECKSUM = 2;
+
     private final ObjectProperty<State> state;
     private final StringProperty name;
     private final UUID uuid;
     private final ObjectProperty<I> info;
-    private final String contentChecksum;
+    private volatile String contentChecksum;
+    private volatile int checksumVersion;
     private final GameDate date;
     private final SavegameNotes notes;
     private final List<String> sourceFileChecksums;
+    private final ReentrantLock lock = new ReentrantLock();
 
     public SavegameEntry(String name, UUID uuid,
-                         String contentChecksum, GameDate date, SavegameNotes notes,
+                         String contentChecksum, int checksumVersion, GameDate date, SavegameNotes notes,
                          List<String> sourceFileChecksums) {
         this.state = new SimpleObjectProperty<>(State.UNLOADED);
         this.contentChecksum = contentChecksum;
+        this.checksumVersion = checksumVersion;
         this.name = new SimpleStringProperty(name);
         this.uuid = uuid;
         this.info = new SimpleObjectProperty<>(null);
@@ -46,8 +58,20 @@ public final class SavegameEntry<T, I extends SavegameInfo<T>> implements Compar
     }
 
     public void unload() {
-        info.set(null);
-        state.set(State.UNLOADED);
+        lock.lock();
+        try {
+            info.set(null);
+            state.set(State.UNLOADED);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the lock that is held while the entry is loaded, unloaded or its files are changed.
+     */
+    public ReentrantLock getLock() {
+        return lock;
     }
 
     public boolean canLoad() {
@@ -83,6 +107,15 @@ public final class SavegameEntry<T, I extends SavegameInfo<T>> implements Compar
         return contentChecksum;
     }
 
+    public int getChecksumVersion() {
+        return checksumVersion;
+    }
+
+    void updateChecksum(String contentChecksum, int checksumVersion) {
+        this.contentChecksum = contentChecksum;
+        this.checksumVersion = checksumVersion;
+    }
+
     public GameDate getDate() {
         return date;
     }
@@ -2,6 +2,7 @@ package com.crschnick.pdxu.app.savegame;
 
 import com.crschnick.pdxu.app.core.ErrorHandler;
 import com.crschnick.pdxu.app.core.IntegrityManager;
+import com.crschnick.pdxu.app.core.TaskExecutor;
 import com.crschnick.pdxu.app.core.settings.Settings;
 import com.crschnick.pdxu.app.gui.game.GameGuiFactory;
 import com.crschnick.pdxu.app.installation.Game;
@@ -12,8 +13,13 @@ import com.crschnick.pdxu.app.util.ImageHelper;
 import com.crschnick.pdxu.app.util.JsonHelper;
 import com.crschnick.pdxu.app.util.integration.RakalyHelper;
 import com.crschnick.pdxu.io.node.Node;
+import com.crschnick.pdxu.io.node.NodeProjection;
+import com.crschnick.pdxu.io.savegame.ContentHash;
+import com.crschnick.pdxu.io.savegame.SavegameIndex;
 import com.crschnick.pdxu.io.savegame.SavegameParseResult;
+import com.crschnick.pdxu.io.savegame.SavegameStructure;
 import com.crschnick.pdxu.io.savegame.SavegameType;
+import com.crschnick.pdxu.io.savegame.ZipSavegameStructure;
 import com.crschnick.pdxu.model.GameDate;
 import com.crschnick.pdxu.model.GameDateType;
 import com.crschnick.pdxu.model.SavegameInfo;
@@ -40,16 +46,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -59,22 +74,43 @@ public abstract class SavegameStorage<
 
 
     public static final BidiMap<Game, SavegameStorage<?, ?>> ALL = new DualHashBidiMap<>();
+    private static final String INDEX_FILE_NAME = "savegame.pdxidx";
+    private static final int CHECKSUM_MIGRATION_BATCH_SIZE = 16;
     private final Logger logger;
+    private final Map<String, List<String>> pendingImports = new HashMap<>();
     private final Class<I> infoClass;
     private final FailableBiFunction<Node, Boolean, I, SavegameInfoException> infoFactory;
+    private final NodeProjection infoProjection;
     private final String name;
     private final GameDateType dateType;
     private final Path path;
     private final SavegameType type;
     private final ObservableSet<SavegameCollection<T, I>> collections = FXCollections.observableSet(new HashSet<>());
 
+    // Guards the collections, their entries and the pending imports.
+    // Entry files are guarded by the entry locks, which have to be acquired before this lock.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object dataFileLock = new Object();
+
+    // Lookup tables for duplicate detection, which are updated whenever an entry is added or deleted
+    // Copies of an entry have the same checksum, so a checksum can belong to multiple entries
+    private final Map<String, Set<SavegameEntry<T, I>>> entriesByChecksum = new ConcurrentHashMap<>();
+    private final Map<String, SavegameEntry<T, I>> entriesBySourceFile = new ConcurrentHashMap<>();
+
+    // Entries of older versions are found by their MD5 checksum until they are migrated.
+    // MD5 is only calculated for imports whose size matches the savegame of such an entry
+    private final Map<String, Set<SavegameEntry<T, I>>> legacyEntriesByChecksum = new ConcurrentHashMap<>();
+    private final Map<SavegameEntry<T, I>, Long> legacySavegameSizes = new ConcurrentHashMap<>();
+
     public SavegameStorage(
             FailableBiFunction<Node, Boolean, I, SavegameInfoException> infoFactory,
+            NodeProjection infoProjection,
             String name,
             GameDateType dateType,
             SavegameType type,
             Class<I> infoClass) {
         this.infoFactory = infoFactory;
+        this.infoProjection = infoProjection;
         this.name = name;
         this.type = type;
         this.dateType = dateType;
@@ -99,6 +135,7 @@ public abstract class SavegameStorage<
     public static void init() throws Exception {
         ALL.put(Game.EU4, new SavegameStorage<>(
                 (node, melted) -> Eu4SavegameInfo.fromSavegame(melted, node),
+                Eu4SavegameInfo.PROJECTION,
                 "eu4",
                 GameDateType.EU4,
                 SavegameType.EU4,
@@ -107,9 +144,19 @@ public abstract class SavegameStorage<
             protected String getDefaultCampaignName(Eu4SavegameInfo info) {
                 return GameLocalisation.getLocalisedValue(info.getTag().getTag(), info);
             }
+
+            @Override
+            protected SavegameParseResult parseInfo(SavegameStructure structure, byte[] bytes, SavegameIndex.Builder index) {
+                // The info does not need the ai part. Without all parts, no index is written for the editor
+                if (structure instanceof ZipSavegameStructure z) {
+                    return z.parseParts(bytes, Set.of("meta", "gamestate"), getInfoProjection());
+                }
+                return super.parseInfo(structure, bytes, index);
+            }
         });
         ALL.put(Game.HOI4, new SavegameStorage<>(
                 (node, melted) -> Hoi4SavegameInfo.fromSavegame(melted, node),
+                Hoi4SavegameInfo.PROJECTION,
                 "hoi4",
                 GameDateType.HOI4,
                 SavegameType.HOI4,
@@ -122,6 +169,7 @@ public abstract class SavegameStorage<
         });
         ALL.put(Game.CK3, new SavegameStorage<>(
                 (node, melted) -> Ck3SavegameInfo.fromSavegame(melted, node),
+                Ck3SavegameInfo.PROJECTION,
                 "ck3",
                 GameDateType.CK3,
                 SavegameType.CK3,
@@ -142,6 +190,7 @@ public abstract class SavegameStorage<
         });
         ALL.put(Game.STELLARIS, new SavegameStorage<>(
                 (node, melted) -> StellarisSavegameInfo.fromSavegame(node),
+                StellarisSavegameInfo.PROJECTION,
                 "stellaris",
                 GameDateType.STELLARIS,
                 SavegameType.STELLARIS,
@@ -154,6 +203,7 @@ public abstract class SavegameStorage<
         });
         ALL.put(Game.CK2, new SavegameStorage<>(
                 (node, melted) -> new Ck2SavegameInfo(node),
+                Ck2SavegameInfo.PROJECTION,
                 "ck2",
                 GameDateType.CK2,
                 SavegameType.CK2,
@@ -166,6 +216,7 @@ public abstract class SavegameStorage<
         });
         ALL.put(Game.VIC2, new SavegameStorage<>(
                 (node, melted) -> new Vic2SavegameInfo(node),
+                null,
                 "vic2",
                 GameDateType.VIC2,
                 SavegameType.VIC2,
@@ -178,6 +229,7 @@ public abstract class SavegameStorage<
         });
         for (SavegameStorage<?, ?> s : ALL.values()) {
             s.loadData();
+            TaskExecutor.getInstance().submitTask(TaskExecutor.Lane.MAINTENANCE, s::migrateLegacyChecksums, false);
         }
     }
 
@@ -188,7 +240,16 @@ public abstract class SavegameStorage<
         ALL.clear();
     }
 
-    private synchronized void loadData() throws Exception {
+    private void loadData() throws Exception {
+        lock.writeLock().lock();
+        try {
+            loadCollections();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void loadCollections() throws Exception {
         Files.createDirectories(getSavegameDataDirectory());
 
         JsonNode node;
@@ -241,18 +302,45 @@ public abstract class SavegameStorage<
                 String name = Optional.ofNullable(entryNode.get("name")).map(JsonNode::textValue).orElse(null);
                 GameDate date = dateType.fromString(entryNode.required("date").textValue());
                 String checksum = entryNode.required("checksum").textValue();
+                int checksumVersion = Optional.ofNullable(entryNode.get("checksumVersion"))
+                        .map(JsonNode::intValue)
+                        .orElse(SavegameEntry.MD5_CHECKSUM);
                 SavegameNotes notes = SavegameNotes.fromNode(entryNode.get("notes"));
                 List<String> sourceFileChecksums = Optional.ofNullable(entryNode.get("sourceFileChecksums"))
                         .map(n -> StreamSupport.stream(n.spliterator(), false)
                                 .map(sfc -> sfc.textValue())
                                 .collect(Collectors.toList()))
                         .orElse(List.of());
-                collection.add(new SavegameEntry<>(name, eId, checksum, date, notes, sourceFileChecksums));
+                var entry = new SavegameEntry<T, I>(
+                        name, eId, checksum, checksumVersion, date, notes, sourceFileChecksums);
+                collection.add(entry);
+                indexEntry(entry);
+                if (checksumVersion == SavegameEntry.MD5_CHECKSUM) {
+                    try {
+                        legacySavegameSizes.put(entry, Files.size(getSavegameDataDirectory()
+                                .resolve(collection.getUuid().toString()).resolve(eId.toString())
+                                .resolve("savegame." + type.getFileEnding())));
+                    } catch (IOException ex) {
+                        // An entry without a savegame can't be a duplicate anyway
+                    }
+                }
             });
         }
     }
 
-    private synchronized void saveData() {
+    void saveData() {
+        // Take the read lock first, since writers save while holding the write lock
+        lock.readLock().lock();
+        try {
+            synchronized (dataFileLock) {
+                writeData();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void writeData() {
         ObjectNode n = JsonNodeFactory.instance.objectNode();
 
         ArrayNode c = n.putArray("campaigns");
@@ -265,6 +353,7 @@ public abstract class SavegameStorage<
                             .put("name", entry.getName())
                             .put("date", entry.getDate().toString())
                             .put("checksum", entry.getContentChecksum())
+                            .put("checksumVersion", entry.getChecksumVersion())
                             .put("uuid", entry.getUuid().toString())
                             .<ObjectNode>set("sourceFileChecksums", JsonNodeFactory.instance.arrayNode().addAll(
                                     entry.getSourceFileChecksums().stream()
@@ -303,6 +392,7 @@ public abstract class SavegameStorage<
                             .put("name", entry.getName())
                             .put("date", entry.getDate().toString())
                             .put("checksum", entry.getContentChecksum())
+                            .put("checksumVersion", entry.getChecksumVersion())
                             .put("uuid", entry.getUuid().toString())
                             .<ObjectNode>set("sourceFileChecksums", JsonNodeFactory.instance.arrayNode().addAll(
                                     entry.getSourceFileChecksums().stream()
@@ -324,15 +414,20 @@ public abstract class SavegameStorage<
         ConfigHelper.writeConfig(getDataFile(), n);
     }
 
-    synchronized Optional<SavegameFolder<T, I>> getOrCreateFolder(String name) {
-        return this.collections.stream()
-                .filter(f -> f instanceof SavegameFolder && f.getName().equals(name))
-                .map(f -> (SavegameFolder<T, I>) f)
-                .findAny()
-                .or(() -> addNewFolder(name));
+    Optional<SavegameFolder<T, I>> getOrCreateFolder(String name) {
+        lock.writeLock().lock();
+        try {
+            return this.collections.stream()
+                    .filter(f -> f instanceof SavegameFolder && f.getName().equals(name))
+                    .map(f -> (SavegameFolder<T, I>) f)
+                    .findAny()
+                    .or(() -> addNewFolder(name));
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
-    public synchronized Optional<SavegameFolder<T, I>> addNewFolder(String name) {
+    public Optional<SavegameFolder<T, I>> addNewFolder(String name) {
         var col = new SavegameFolder<T, I>(Instant.now(), name, UUID.randomUUID());
         try {
             Files.createDirectory(getSavegameDataDirectory().resolve(col.getUuid().toString()));
@@ -340,11 +435,17 @@ public abstract class SavegameStorage<
             ErrorHandler.handleException(e);
             return Optional.empty();
         }
-        this.collections.add(col);
+
+        lock.writeLock().lock();
+        try {
+            this.collections.add(col);
+        } finally {
+            lock.writeLock().unlock();
+        }
         return Optional.of(col);
     }
 
-    public synchronized void addNewEntryToCampaign(
+    public void addNewEntryToCampaign(
             UUID campainUuid,
             UUID entryUuid,
             String checksum,
@@ -355,29 +456,36 @@ public abstract class SavegameStorage<
                 name != null ? name : getDefaultEntryName(info),
                 entryUuid,
                 checksum,
+                SavegameEntry.CONTENT_HASH_CHECKSUM,
                 info.getDate(),
                 SavegameNotes.empty(),
                 sourceFileChecksum != null ? List.of(sourceFileChecksum) : List.of());
-        if (this.getSavegameCollection(campainUuid).isEmpty()) {
-            logger.debug("Adding new campaign " + getDefaultCampaignName(info));
-            var img = GameGuiFactory.<T, I>get(ALL.inverseBidiMap().get(this))
-                    .tagImage(info, info.getTag());
-            SavegameCampaign<T, I> newCampaign = new SavegameCampaign<>(
-                    Instant.now(),
-                    getDefaultCampaignName(info),
-                    campainUuid,
-                    e.getDate(),
-                    img);
-            this.collections.add(newCampaign);
-        }
-
-        SavegameCollection<T, I> c = this.getSavegameCollection(campainUuid).get();
-        logger.debug("Adding new entry " + e.getName());
-        c.add(e);
-        c.onSavegamesChange();
+        lock.writeLock().lock();
+        try {
+            if (this.getSavegameCollection(campainUuid).isEmpty()) {
+                logger.debug("Adding new campaign " + getDefaultCampaignName(info));
+                var img = GameGuiFactory.<T, I>get(ALL.inverseBidiMap().get(this))
+                        .tagImage(info, info.getTag());
+                SavegameCampaign<T, I> newCampaign = new SavegameCampaign<>(
+                        Instant.now(),
+                        getDefaultCampaignName(info),
+                        campainUuid,
+                        e.getDate(),
+                        img);
+                this.collections.add(newCampaign);
+            }
+
+            SavegameCollection<T, I> c = this.getSavegameCollection(campainUuid).get();
+            logger.debug("Adding new entry " + e.getName());
+            c.add(e);
+            indexEntry(e);
+            c.onSavegamesChange();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
-    public synchronized void addNewEntryToCollection(
+    public void addNewEntryToCollection(
             SavegameCollection<T, I> col,
             UUID entryUuid,
             String checksum,
@@ -388,12 +496,52 @@ public abstract class SavegameStorage<
                 name != null ? name : getDefaultEntryName(info),
                 entryUuid,
                 checksum,
+                SavegameEntry.CONTENT_HASH_CHECKSUM,
                 info.getDate(),
                 SavegameNotes.empty(),
                 sourceFileChecksum != null ? List.of(sourceFileChecksum) : List.of());
         logger.debug("Adding new entry " + e.getName());
-        col.getSavegames().add(e);
-        col.onSavegamesChange();
+        lock.writeLock().lock();
+        try {
+            col.getSavegames().add(e);
+            indexEntry(e);
+            col.onSavegamesChange();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void indexEntry(SavegameEntry<T, I> e) {
+        if (e.getContentChecksum() != null) {
+            addToIndex(e.getChecksumVersion() == SavegameEntry.MD5_CHECKSUM ?
+                    legacyEntriesByChecksum : entriesByChecksum, e.getContentChecksum(), e);
+        }
+        e.getSourceFileChecksums().forEach(cs -> entriesBySourceFile.put(cs, e));
+    }
+
+    private void unindexEntry(SavegameEntry<T, I> e) {
+        if (e.getContentChecksum() != null) {
+            removeFromIndex(e.getChecksumVersion() == SavegameEntry.MD5_CHECKSUM ?
+                    legacyEntriesByChecksum : entriesByChecksum, e.getContentChecksum(), e);
+        }
+        legacySavegameSizes.remove(e);
+        e.getSourceFileChecksums().forEach(cs -> entriesBySourceFile.remove(cs, e));
+    }
+
+    private static <E> void addToIndex(Map<String, Set<E>> index, String checksum, E e) {
+        index.computeIfAbsent(checksum, cs -> ConcurrentHashMap.newKeySet()).add(e);
+    }
+
+    private static <E> void removeFromIndex(Map<String, Set<E>> index, String checksum, E e) {
+        index.computeIfPresent(checksum, (cs, entries) -> {
+            entries.remove(e);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    private void addSourceFileChecksum(SavegameEntry<T, I> e, String sourceFileChecksum) {
+        e.addSourceFileChecksum(sourceFileChecksum);
+        entriesBySourceFile.put(sourceFileChecksum, e);
     }
 
     private String getDefaultEntryName(I info) {
@@ -402,103 +550,195 @@ public abstract class SavegameStorage<
 
     protected abstract String getDefaultCampaignName(I info);
 
-    public synchronized boolean contains(SavegameEntry<?, ?> e) {
-        return collections.stream()
-                .anyMatch(c -> c.getSavegames().stream().anyMatch(ce -> ce.getUuid().equals(e.getUuid())));
+    /**
+     * Parses a non-binary savegame for its info.
+     * Storages can override this to skip parts of a savegame that the info does not need.
+     */
+    protected SavegameParseResult parseInfo(SavegameStructure structure, byte[] bytes, SavegameIndex.Builder index) {
+        return structure.parse(bytes, infoProjection, index);
     }
 
-    public synchronized SavegameCollection<T, I> getSavegameCollection(SavegameEntry<?, ?> e) {
-        var campaign = collections.stream()
-                .filter(c -> c.getSavegames().stream().anyMatch(ce -> ce.getUuid().equals(e.getUuid())))
-                .findAny();
-        return campaign.orElseThrow(() -> new IllegalArgumentException(
-                "Could not find savegame collection for entry " + e.getName()));
+    public boolean contains(SavegameEntry<?, ?> e) {
+        lock.readLock().lock();
+        try {
+            return collections.stream()
+                    .anyMatch(c -> c.getSavegames().stream().anyMatch(ce -> ce.getUuid().equals(e.getUuid())));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    synchronized void moveEntry(
-            SavegameCollection<T, I> to, SavegameEntry<T, I> entry) {
-        var from = getSavegameCollection(entry);
-        if (from == to) {
-            return;
+    public SavegameCollection<T, I> getSavegameCollection(SavegameEntry<?, ?> e) {
+        lock.readLock().lock();
+        try {
+            var campaign = collections.stream()
+                    .filter(c -> c.getSavegames().stream().anyMatch(ce -> ce.getUuid().equals(e.getUuid())))
+                    .findAny();
+            return campaign.orElseThrow(() -> new IllegalArgumentException(
+                    "Could not find savegame collection for entry " + e.getName()));
+        } finally {
+            lock.readLock().unlock();
         }
+    }
 
-        var srcDir = getSavegameDataDirectory(entry).toFile();
+    void moveEntry(
+            SavegameCollection<T, I> to, SavegameEntry<T, I> entry) {
+        var entryLock = entry.getLock();
+        entryLock.lock();
         try {
-            FileUtils.copyDirectory(
-                    srcDir,
-                    getSavegameDataDirectory().resolve(to.getUuid().toString()).resolve(entry.getUuid().toString()).toFile());
-        } catch (IOException e) {
-            ErrorHandler.handleException(e);
-            return;
-        }
+            var from = getSavegameCollection(entry);
+            if (from == to) {
+                return;
+            }
 
-        from.getSavegames().remove(entry);
-        from.onSavegamesChange();
-        to.getSavegames().add(entry);
-        to.onSavegamesChange();
+            var srcDir = getSavegameDataDirectory(entry).toFile();
+            try {
+                FileUtils.copyDirectory(
+                        srcDir,
+                        getSavegameDataDirectory().resolve(to.getUuid().toString()).resolve(entry.getUuid().toString()).toFile());
+            } catch (IOException e) {
+                ErrorHandler.handleException(e);
+                return;
+            }
 
-        try {
-            FileUtils.deleteDirectory(srcDir);
-        } catch (IOException e) {
-            ErrorHandler.handleException(e);
-        }
-        if (from.getSavegames().size() == 0) {
-            delete(from);
+            lock.writeLock().lock();
+            try {
+                from.getSavegames().remove(entry);
+                from.onSavegamesChange();
+                to.getSavegames().add(entry);
+                to.onSavegamesChange();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            try {
+                FileUtils.deleteDirectory(srcDir);
+            } catch (IOException e) {
+                ErrorHandler.handleException(e);
+            }
+            deleteIfEmpty(from);
+        } finally {
+            entryLock.unlock();
         }
 
         saveData();
     }
 
-    synchronized void delete(SavegameCollection<T, I> c) {
-        if (!this.collections.contains(c)) {
-            return;
-        }
+    void delete(SavegameCollection<T, I> c) {
+        delete(c, false);
+    }
 
-        Path campaignPath = path.resolve(c.getUuid().toString());
-        try {
-            FileUtils.deleteDirectory(campaignPath.toFile());
-        } catch (IOException e) {
-            // Don't show the user this error. It sometimes happens when the file is
-            // used by another process or even an antivirus program
-            logger.error("Could not delete collection " + c.getName(), c);
-        }
+    private void deleteIfEmpty(SavegameCollection<T, I> c) {
+        delete(c, true);
+    }
 
-        this.collections.remove(c);
+    private void delete(SavegameCollection<T, I> c, boolean onlyIfEmpty) {
+        while (true) {
+            List<SavegameEntry<T, I>> entries;
+            lock.readLock().lock();
+            try {
+                entries = c.getSavegames().stream()
+                        .sorted(Comparator.comparing(SavegameEntry::getUuid))
+                        .collect(Collectors.toList());
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (onlyIfEmpty && entries.size() > 0) {
+                return;
+            }
 
-        saveData();
-    }
+            // Entry locks have to be acquired before the storage lock, so that no entry files are loaded
+            // while the directory is deleted. They are acquired in a fixed order to not deadlock with other deletes
+            entries.forEach(e -> e.getLock().lock());
+            try {
+                lock.writeLock().lock();
+                try {
+                    // Entries that were added in the meantime are not locked, so try again
+                    if (c.getSavegames().size() != entries.size() || !c.getSavegames().containsAll(entries)) {
+                        continue;
+                    }
 
+                    if (!this.collections.remove(c)) {
+                        return;
+                    }
+                    c.getSavegames().forEach(this::unindexEntry);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+
+                Path campaignPath = path.resolve(c.getUuid().toString());
+                try {
+                    FileUtils.deleteDirectory(campaignPath.toFile());
+                } catch (IOException e) {
+                    // Don't show the user this error. It sometimes happens when the file is
+                    // used by another process or even an antivirus program
+                    logger.error("Could not delete collection " + c.getName(), c);
+                }
+            } finally {
+                entries.forEach(e -> e.getLock().unlock());
+            }
 
-    synchronized void delete(SavegameEntry<T, I> e) {
-        SavegameCollection<T, I> c = getSavegameCollection(e);
-        if (!this.collections.contains(c) || !c.getSavegames().contains(e)) {
+            saveData();
             return;
         }
+    }
+
 
-        Path campaignPath = path.resolve(c.getUuid().toString());
+    void delete(SavegameEntry<T, I> e) {
+        var entryLock = e.getLock();
+        entryLock.lock();
         try {
-            FileUtils.deleteDirectory(campaignPath.resolve(e.getUuid().toString()).toFile());
-        } catch (IOException ex) {
-            // Don't show the user this error. It sometimes happens when the file is
-            // used by another process or even an antivirus program
-            logger.error("Could not delete entry " + e.getName(), ex);
-        }
+            SavegameCollection<T, I> c;
+            lock.writeLock().lock();
+            try {
+                c = getSavegameCollection(e);
+                if (!this.collections.contains(c) || !c.getSavegames().remove(e)) {
+                    return;
+                }
+                unindexEntry(e);
+                c.onSavegamesChange();
+            } finally {
+                lock.writeLock().unlock();
+            }
 
-        c.getSavegames().remove(e);
-        c.onSavegamesChange();
-        if (c.getSavegames().size() == 0) {
-            delete(c);
+            Path campaignPath = path.resolve(c.getUuid().toString());
+            try {
+                FileUtils.deleteDirectory(campaignPath.resolve(e.getUuid().toString()).toFile());
+            } catch (IOException ex) {
+                // Don't show the user this error. It sometimes happens when the file is
+                // used by another process or even an antivirus program
+                logger.error("Could not delete entry " + e.getName(), ex);
+            }
+
+            deleteIfEmpty(c);
+        } finally {
+            entryLock.unlock();
         }
 
         saveData();
     }
 
-    public synchronized void loadEntry(SavegameEntry<T, I> e) {
+    /**
+     * Loads the info of an entry. Entries are loaded without holding the storage lock,
+     * so multiple entries can be loaded concurrently.
+     */
+    public void loadEntry(SavegameEntry<T, I> e) {
+        // Don't check the state before acquiring the lock, since a pending unload might still change it
+        var entryLock = e.getLock();
+        entryLock.lock();
+        try {
+            loadEntryFiles(e);
+        } finally {
+            entryLock.unlock();
+        }
+    }
+
+    private void loadEntryFiles(SavegameEntry<T, I> e) {
+        // The entry might have been loaded by another thread while waiting for the lock
         if (!e.canLoad()) {
             return;
         }
 
-
         var file = getSavegameFile(e);
         if (!Files.exists(file)) {
             e.fail();
@@ -519,46 +759,69 @@ public abstract class SavegameStorage<
 
         e.startLoading();
 
-        SavegameParseResult result;
-        boolean melted;
+        SavegameParseResult result = null;
+        boolean melted = false;
+        SavegameIndex.Builder indexBuilder = null;
         try {
-            var bytes = Files.readAllBytes(file);
-            if (type.isBinary(bytes)) {
-                bytes = RakalyHelper.toPlaintext(file);
-                melted = true;
-            } else {
-                melted = false;
+            var index = getSavegameIndex(e);
+            if (index.isPresent()) {
+                logger.debug("Parsing savegame from index " + getSavegameIndexFile(e));
+                result = index.get().parse(type, infoProjection);
+                if (result.success().isEmpty()) {
+                    // The index is only a cache, so parse the savegame itself instead
+                    logger.warn("Unable to parse savegame index " + getSavegameIndexFile(e) + ". Deleting it ...");
+                    Files.deleteIfExists(getSavegameIndexFile(e));
+                    result = null;
+                }
+            }
+
+            if (result == null) {
+                var bytes = Files.readAllBytes(file);
+                var probe = type.probe(bytes);
+                if (probe.binary()) {
+                    result = RakalyHelper.parseBinary(type, file, bytes, infoProjection);
+                    melted = true;
+                } else {
+                    indexBuilder = new SavegameIndex.Builder(bytes);
+                    result = parseInfo(probe.structure(), bytes, indexBuilder);
+                }
             }
-            var struc = type.determineStructure(bytes);
-            result = struc.parse(bytes);
         } catch (Exception ex) {
             ErrorHandler.handleException(ex);
             e.fail();
             return;
         }
 
+        var builder = indexBuilder;
+        var wasMelted = melted;
         result.visit(new SavegameParseResult.Visitor() {
             @Override
             public void success(SavegameParseResult.Success s) {
                 try {
                     logger.debug("Parsing was successful. Loading info ...");
-                    I info = infoFactory.apply(s.combinedNode(), melted);
+                    I info = infoFactory.apply(s.combinedNode(), wasMelted);
                     e.load(info);
                     getSavegameCollection(e).onSavegameLoad(e);
 
 
                     // Clear old info files
-                    Files.list(getSavegameDataDirectory(e)).filter(p -> !p.equals(getSavegameFile(e))).forEach(p -> {
-                        try {
-                            logger.debug("Deleting old info file " + p.toString());
-                            Files.delete(p);
-                        } catch (IOException ioException) {
-                            ErrorHandler.handleException(ioException);
-                        }
-                    });
+                    Files.list(getSavegameDataDirectory(e))
+                            .filter(p -> !p.equals(getSavegameFile(e)) && !p.equals(getSavegameIndexFile(e)))
+                            .forEach(p -> {
+                                try {
+                                    logger.debug("Deleting old info file " + p.toString());
+                                    Files.delete(p);
+                                } catch (IOException ioException) {
+                                    ErrorHandler.handleException(ioException);
+                                }
+                            });
 
                     logger.debug("Writing new info to file " + getSavegameInfoFile(e));
                     JsonHelper.writeObject(info, getSavegameInfoFile(e));
+
+                    if (builder != null) {
+                        writeSavegameIndex(builder, getSavegameIndexFile(e), file, e.getContentChecksum());
+                    }
                 } catch (Exception ex) {
                     ErrorHandler.handleException(ex);
                     e.fail();
@@ -579,40 +842,78 @@ public abstract class SavegameStorage<
         });
     }
 
-    public synchronized Path getSavegameFile(SavegameEntry<?, ?> e) {
+    public Path getSavegameFile(SavegameEntry<?, ?> e) {
         return getSavegameDataDirectory(e).resolve("savegame." + type.getFileEnding());
     }
 
-    public synchronized Path getSavegameInfoFile(SavegameEntry<T, I> e) {
+    public Path getSavegameIndexFile(SavegameEntry<?, ?> e) {
+        return getSavegameDataDirectory(e).resolve(INDEX_FILE_NAME);
+    }
+
+    /**
+     * Returns the stored tokens of a savegame if they are still valid for the savegame file.
+     */
+    public Optional<SavegameIndex> getSavegameIndex(SavegameEntry<?, ?> e) {
+        return SavegameIndex.read(getSavegameIndexFile(e), getSavegameFile(e), e.getContentChecksum());
+    }
+
+    private void writeSavegameIndex(SavegameIndex.Builder builder, Path indexFile, Path file, String checksum) {
+        // The index is only a cache, so a failed write is not an error
+        try {
+            if (!builder.canWrite() || checksum == null) {
+                // Remove an outdated index, e.g. one of an older version that contains inflated data
+                Files.deleteIfExists(indexFile);
+                return;
+            }
+
+            logger.debug("Writing savegame index to file " + indexFile);
+            builder.write(indexFile, file, checksum);
+        } catch (IOException ex) {
+            logger.warn("Unable to write savegame index " + indexFile + ": " + ex.getMessage());
+        }
+    }
+
+    public Path getSavegameInfoFile(SavegameEntry<T, I> e) {
         return getSavegameDataDirectory(e).resolve(getInfoFileName());
     }
 
-    public synchronized Path getSavegameDataDirectory(SavegameEntry<?, ?> e) {
+    public Path getSavegameDataDirectory(SavegameEntry<?, ?> e) {
         Path campaignPath = path.resolve(getSavegameCollection(e).getUuid().toString());
         return campaignPath.resolve(e.getUuid().toString());
     }
 
-    public synchronized Optional<SavegameCollection<T, I>> getSavegameCollection(UUID uuid) {
-        for (SavegameCollection<T, I> c : collections) {
-            if (c.getUuid().equals(uuid)) {
-                return Optional.of(c);
+    public Optional<SavegameCollection<T, I>> getSavegameCollection(UUID uuid) {
+        lock.readLock().lock();
+        try {
+            for (SavegameCollection<T, I> c : collections) {
+                if (c.getUuid().equals(uuid)) {
+                    return Optional.of(c);
+                }
             }
+            return Optional.empty();
+        } finally {
+            lock.readLock().unlock();
         }
-        return Optional.empty();
     }
 
-    public synchronized String getCompatibleName(SavegameEntry<?, ?> e, boolean includeEntryName) {
+    public String getCompatibleName(SavegameEntry<?, ?> e, boolean includeEntryName) {
         var name = getSavegameCollection(e).getName() + (includeEntryName ?
                 " (" + e.getName() + ")." : ".") + type.getFileEnding();
         return SavegameContext.getForSavegame(e).getInstallType().getCompatibleSavegameName(name);
     }
 
-    public synchronized void copySavegameTo(SavegameEntry<T, I> e, Path destPath) throws IOException {
-        Path srcPath = getSavegameFile(e);
+    public void copySavegameTo(SavegameEntry<T, I> e, Path destPath) throws IOException {
+        var entryLock = e.getLock();
+        entryLock.lock();
+        try {
+            Path srcPath = getSavegameFile(e);
 
-        FileUtils.forceMkdirParent(destPath.toFile());
-        FileUtils.copyFile(srcPath.toFile(), destPath.toFile(), false);
-        destPath.toFile().setLastModified(Instant.now().toEpochMilli());
+            FileUtils.forceMkdirParent(destPath.toFile());
+            FileUtils.copyFile(srcPath.toFile(), destPath.toFile(), false);
+            destPath.toFile().setLastModified(Instant.now().toEpochMilli());
+        } finally {
+            entryLock.unlock();
+        }
     }
 
     protected Optional<SavegameParseResult> importSavegame(
@@ -635,32 +936,97 @@ public abstract class SavegameStorage<
         return "info_" + cs + ".json";
     }
 
-    public synchronized void invalidateSavegameInfo(SavegameEntry<T, I> e) {
-        if (Files.exists(getSavegameInfoFile(e))) {
-            logger.debug("Invalidating " + getSavegameInfoFile(e));
-            try {
-                Files.delete(getSavegameInfoFile(e));
-            } catch (Exception ex) {
-                ErrorHandler.handleException(ex);
+    public void invalidateSavegameInfo(SavegameEntry<T, I> e) {
+        var entryLock = e.getLock();
+        entryLock.lock();
+        try {
+            if (Files.exists(getSavegameInfoFile(e))) {
+                logger.debug("Invalidating " + getSavegameInfoFile(e));
+                try {
+                    Files.delete(getSavegameInfoFile(e));
+                } catch (Exception ex) {
+                    ErrorHandler.handleException(ex);
+                }
             }
+        } finally {
+            entryLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the MD5 checksums of entries that were imported by older versions.
+     * The entries are migrated in batches, so that other maintenance tasks can run in between.
+     */
+    private void migrateLegacyChecksums() {
+        List<SavegameEntry<T, I>> legacyEntries;
+        lock.readLock().lock();
+        try {
+            legacyEntries = getCollections().stream().flatMap(SavegameCollection::entryStream)
+                    .filter(e -> e.getChecksumVersion() == SavegameEntry.MD5_CHECKSUM)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (legacyEntries.size() > 0) {
+            logger.debug("Migrating checksums of " + legacyEntries.size() + " entries");
+            migrateLegacyChecksums(new ArrayDeque<>(legacyEntries));
+        }
+    }
+
+    private void migrateLegacyChecksums(Queue<SavegameEntry<T, I>> remaining) {
+        for (int i = 0; i < CHECKSUM_MIGRATION_BATCH_SIZE && !remaining.isEmpty(); i++) {
+            migrateChecksum(remaining.poll());
+        }
+        saveData();
+
+        if (!remaining.isEmpty()) {
+            TaskExecutor.getInstance().submitTask(
+                    TaskExecutor.Lane.MAINTENANCE, () -> migrateLegacyChecksums(remaining), false);
         }
     }
 
-    private String checksum(byte[] content) {
-        MessageDigest d = null;
+    /**
+     * Calculates the MD5 checksum that is used by entries with {@link SavegameEntry#MD5_CHECKSUM}.
+     */
+    private static String legacyChecksum(byte[] content) {
+        MessageDigest d;
         try {
             d = MessageDigest.getInstance("MD5");
         } catch (NoSuchAlgorithmException e) {
             throw new IllegalStateException("MD5 missing!");
         }
-        d.update(content);
-        StringBuilder c = new StringBuilder();
-        ByteBuffer b = ByteBuffer.wrap(d.digest());
-        for (int i = 0; i < 16; i++) {
-            var hex = String.format("%02x", b.get());
-            c.append(hex);
+        return ContentHash.toHexString(d.digest(content));
+    }
+
+    private void migrateChecksum(SavegameEntry<T, I> e) {
+        var entryLock = e.getLock();
+        entryLock.lock();
+        try {
+            if (!contains(e)) {
+                return;
+            }
+
+            String checksum;
+            try {
+                checksum = new ContentHash().update(getSavegameFile(e)).digest();
+            } catch (IOException ex) {
+                // An entry without a readable savegame can't be a duplicate anyway
+                logger.warn("Unable to migrate checksum of entry " + e.getName() + ": " + ex.getMessage());
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                unindexEntry(e);
+                e.updateChecksum(checksum, SavegameEntry.CONTENT_HASH_CHECKSUM);
+                indexEntry(e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            entryLock.unlock();
         }
-        return c.toString();
     }
 
     private boolean isInternalSavegame(Path file, byte[] bytes, boolean melted) {
@@ -692,121 +1058,301 @@ public abstract class SavegameStorage<
             boolean checkDuplicate,
             String sourceFileChecksum,
             SavegameCollection<T, I> col) {
-        logger.debug("Parsing file " + file.toString());
-        final SavegameParseResult[] result = new SavegameParseResult[1];
-        String checksum;
-        byte[] bytes;
-        boolean melted;
+        var job = createImportJob(file, name, checkDuplicate, sourceFileChecksum, col);
+        job.read();
+        job.hash();
+        job.melt();
+        job.parse();
+        job.extractInfo();
+        job.persist();
+        return job.getResult();
+    }
+
+    ImportJob createImportJob(
+            Path file,
+            String name,
+            boolean checkDuplicate,
+            String sourceFileChecksum,
+            SavegameCollection<T, I> col) {
+        return new ImportJob(file, name, checkDuplicate, sourceFileChecksum, col);
+    }
+
+    /**
+     * Claims a checksum for an import that is in progress, so that concurrent imports of the same content are detected.
+     * Returns false if the checksum is already stored or claimed. The source file checksum is then added to that entry.
+     */
+    private boolean claimChecksum(String checksum, String legacyChecksum, String sourceFileChecksum) {
+        lock.writeLock().lock();
         try {
-            bytes = Files.readAllBytes(file);
-            checksum = checksum(bytes);
-            logger.debug("Checksum is " + checksum);
-            if (checkDuplicate) {
-                var exists = getSavegameForChecksum(checksum);
-                if (exists.isPresent()) {
-                    logger.debug("Entry " + exists.get().getName() + " with checksum already in storage");
-                    if (sourceFileChecksum != null) {
-                        exists.get().addSourceFileChecksum(sourceFileChecksum);
-                    }
-                    return Optional.empty();
-                } else {
-                    logger.debug("No entry with checksum found");
+            var exists = getSavegameForChecksum(checksum).or(() -> {
+                var legacyEntries = legacyChecksum != null ? legacyEntriesByChecksum.get(legacyChecksum) : null;
+                return legacyEntries != null ? legacyEntries.stream().findAny() : Optional.empty();
+            });
+            if (exists.isPresent()) {
+                logger.debug("Entry " + exists.get().getName() + " with checksum already in storage");
+                if (sourceFileChecksum != null) {
+                    addSourceFileChecksum(exists.get(), sourceFileChecksum);
                 }
+                return false;
             }
 
-            byte[] data;
-            if (type.isBinary(bytes)) {
-                data = RakalyHelper.toPlaintext(file);
-                melted = true;
-            } else {
-                data = bytes;
-                melted = false;
+            var pending = pendingImports.get(checksum);
+            if (pending != null) {
+                logger.debug("Entry with checksum is already being imported");
+                if (sourceFileChecksum != null) {
+                    pending.add(sourceFileChecksum);
+                }
+                return false;
             }
-            var struc = type.determineStructure(data);
-            result[0] = struc.parse(data);
-        } catch (Exception ex) {
-            return Optional.of(new SavegameParseResult.Error(ex));
+
+            logger.debug("No entry with checksum found");
+            pendingImports.put(checksum, new ArrayList<>());
+            return true;
+        } finally {
+            lock.writeLock().unlock();
         }
+    }
 
-        final SavegameParseResult[] resultToReturn = new SavegameParseResult[1];
-        result[0].visit(new SavegameParseResult.Visitor() {
-            @Override
-            public void success(SavegameParseResult.Success s) {
-                logger.debug("Parsing was successful. Loading info ...");
-                I info = null;
-                try {
-                    info = infoFactory.apply(s.combinedNode(), melted);
-                } catch (SavegameInfoException e) {
-                    resultToReturn[0] = new SavegameParseResult.Error(e);
+    private List<String> releaseChecksum(String checksum) {
+        lock.writeLock().lock();
+        try {
+            var pending = pendingImports.remove(checksum);
+            return pending != null ? pending : List.of();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The stages of a savegame import. They have to be called in order, but each stage can run on a different thread.
+     * Once a stage fails or detects a duplicate, all following stages do nothing.
+     */
+    final class ImportJob {
+
+        private final Path file;
+        private final String name;
+        private final boolean checkDuplicate;
+        private final String sourceFileChecksum;
+        private final SavegameCollection<T, I> col;
+
+        private byte[] bytes;
+        private String checksum;
+        private boolean claimed;
+        private boolean binary;
+        private SavegameStructure structure;
+        private byte[] meltedBytes;
+        private SavegameIndex.Builder indexBuilder;
+        private SavegameParseResult parseResult;
+        private I info;
+        private boolean done;
+        private SavegameParseResult result;
+
+        private ImportJob(Path file, String name, boolean checkDuplicate, String sourceFileChecksum, SavegameCollection<T, I> col) {
+            this.file = file;
+            this.name = name;
+            this.checkDuplicate = checkDuplicate;
+            this.sourceFileChecksum = sourceFileChecksum;
+            this.col = col;
+        }
+
+        private void finish(SavegameParseResult result) {
+            this.done = true;
+            this.result = result;
+            this.bytes = null;
+            this.meltedBytes = null;
+            this.indexBuilder = null;
+            this.parseResult = null;
+            if (claimed) {
+                releaseChecksum(checksum);
+            }
+        }
+
+        void fail(Throwable t) {
+            if (!done) {
+                finish(new SavegameParseResult.Error(t));
+            }
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        Optional<SavegameParseResult> getResult() {
+            return Optional.ofNullable(result);
+        }
+
+        SavegameStorage<T, I> getStorage() {
+            return SavegameStorage.this;
+        }
+
+        void read() {
+            if (done) {
+                return;
+            }
+
+            logger.debug("Parsing file " + file.toString());
+            try {
+                var hash = new ContentHash();
+                bytes = hash.readFully(file);
+                checksum = hash.digest();
+            } catch (Exception ex) {
+                fail(ex);
+            }
+        }
+
+        void hash() {
+            if (done) {
+                return;
+            }
+
+            logger.debug("Checksum is " + checksum);
+            if (checkDuplicate) {
+                // Entries that are not migrated yet can only be matched by their MD5 checksum
+                var legacyChecksum = legacySavegameSizes.containsValue((long) bytes.length) ? legacyChecksum(bytes) : null;
+                if (!claimChecksum(checksum, legacyChecksum, sourceFileChecksum)) {
+                    finish(null);
                     return;
                 }
+                claimed = true;
+            }
+        }
 
-                UUID collectionUuid;
-                if (col == null) {
-                    collectionUuid = info.getCampaignHeuristic();
-                    logger.debug("Campaign UUID is " + collectionUuid.toString());
+        void melt() {
+            if (done) {
+                return;
+            }
+
+            try {
+                var probe = type.probe(bytes);
+                binary = probe.binary();
+                structure = probe.structure();
+                if (binary && !RakalyHelper.canParseBinary(type)) {
+                    meltedBytes = RakalyHelper.toPlaintext(file);
+                }
+            } catch (Exception ex) {
+                fail(ex);
+            }
+        }
+
+        void parse() {
+            if (done) {
+                return;
+            }
+
+            try {
+                if (meltedBytes != null) {
+                    parseResult = type.determineStructure(meltedBytes).parse(meltedBytes, infoProjection);
+                    meltedBytes = null;
+                } else if (binary) {
+                    parseResult = RakalyHelper.parseBinary(type, file, bytes, infoProjection);
                 } else {
-                    collectionUuid = col.getUuid();
-                    logger.debug("Folder UUID is " + collectionUuid.toString());
+                    indexBuilder = new SavegameIndex.Builder(bytes);
+                    parseResult = parseInfo(structure, bytes, indexBuilder);
                 }
-                UUID saveUuid = UUID.randomUUID();
-                logger.debug("Generated savegame UUID " + saveUuid.toString());
+            } catch (Exception ex) {
+                fail(ex);
+            }
+        }
 
-                synchronized (this) {
-                    Path entryPath = getSavegameDataDirectory().resolve(collectionUuid.toString()).resolve(saveUuid.toString());
+        void extractInfo() {
+            if (done) {
+                return;
+            }
+
+            parseResult.visit(new SavegameParseResult.Visitor() {
+                @Override
+                public void success(SavegameParseResult.Success s) {
+                    logger.debug("Parsing was successful. Loading info ...");
                     try {
-                        FileUtils.forceMkdir(entryPath.toFile());
-                        var file = entryPath.resolve(getSaveFileName());
-                        Files.write(file, bytes);
-                        JsonHelper.writeObject(info, entryPath.resolve(getInfoFileName()));
-
-                        if (col == null) {
-                            addNewEntryToCampaign(collectionUuid, saveUuid, checksum, info, name, sourceFileChecksum);
-                        } else {
-                            addNewEntryToCollection(col, saveUuid, checksum, info, name, sourceFileChecksum);
-                        }
-                    } catch (Exception e) {
-                        ErrorHandler.handleException(e);
+                        info = infoFactory.apply(s.combinedNode(), binary);
+                    } catch (SavegameInfoException e) {
+                        finish(new SavegameParseResult.Error(e));
                     }
                 }
+
+                @Override
+                public void error(SavegameParseResult.Error e) {
+                    logger.error("An error occured during parsing: " + e.error.getMessage());
+                    finish(e);
+                }
+
+                @Override
+                public void invalid(SavegameParseResult.Invalid iv) {
+                    logger.error("Savegame is invalid: " + iv.message);
+                    finish(iv);
+                }
+            });
+            parseResult = null;
+        }
+
+        void persist() {
+            if (done) {
+                return;
             }
 
-            @Override
-            public void error(SavegameParseResult.Error e) {
-                logger.error("An error occured during parsing: " + e.error.getMessage());
-                resultToReturn[0] = e;
+            UUID collectionUuid;
+            if (col == null) {
+                collectionUuid = info.getCampaignHeuristic();
+                logger.debug("Campaign UUID is " + collectionUuid.toString());
+            } else {
+                collectionUuid = col.getUuid();
+                logger.debug("Folder UUID is " + collectionUuid.toString());
             }
+            UUID saveUuid = UUID.randomUUID();
+            logger.debug("Generated savegame UUID " + saveUuid.toString());
 
-            @Override
-            public void invalid(SavegameParseResult.Invalid iv) {
-                logger.error("Savegame is invalid: " + iv.message);
-                resultToReturn[0] = iv;
+            Path entryPath = getSavegameDataDirectory().resolve(collectionUuid.toString()).resolve(saveUuid.toString());
+            try {
+                FileUtils.forceMkdir(entryPath.toFile());
+                var savegameFile = entryPath.resolve(getSaveFileName());
+                Files.write(savegameFile, bytes);
+                JsonHelper.writeObject(info, entryPath.resolve(getInfoFileName()));
+                if (indexBuilder != null) {
+                    writeSavegameIndex(indexBuilder, entryPath.resolve(INDEX_FILE_NAME), savegameFile, checksum);
+                }
+
+                lock.writeLock().lock();
+                try {
+                    if (col == null) {
+                        addNewEntryToCampaign(collectionUuid, saveUuid, checksum, info, name, sourceFileChecksum);
+                    } else {
+                        addNewEntryToCollection(col, saveUuid, checksum, info, name, sourceFileChecksum);
+                    }
+
+                    // Add the source files of duplicates that were imported at the same time
+                    if (claimed) {
+                        claimed = false;
+                        var entry = getSavegameForChecksum(checksum);
+                        releaseChecksum(checksum).forEach(cs -> entry.ifPresent(e -> addSourceFileChecksum(e, cs)));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } catch (Exception e) {
+                ErrorHandler.handleException(e);
             }
-        });
-        return Optional.ofNullable(resultToReturn[0]);
+            finish(null);
+        }
     }
 
-    public synchronized Optional<SavegameEntry<T, I>> getSavegameForChecksum(String cs) {
-        return getCollections().stream().flatMap(SavegameCollection::entryStream)
-                .filter(ch -> ch.getContentChecksum().equals(cs))
-                .findAny();
+    public Optional<SavegameEntry<T, I>> getSavegameForChecksum(String cs) {
+        var entries = cs != null ? entriesByChecksum.get(cs) : null;
+        return entries != null ? entries.stream().findAny() : Optional.empty();
     }
 
-    public synchronized String getEntryName(SavegameEntry<T, I> e) {
+    public String getEntryName(SavegameEntry<T, I> e) {
         String cn = getSavegameCollection(e).getName();
         String en = e.getName();
         return cn + " (" + en + ")";
     }
 
-    public synchronized Optional<SavegameEntry<T,I>> getEntryForSourceFile(String sourceFileChecksum) {
-        return getCollections().stream().flatMap(SavegameCollection::entryStream)
-                .filter(ch -> ch.getSourceFileChecksums().contains(sourceFileChecksum))
-                .findAny();
+    public Optional<SavegameEntry<T,I>> getEntryForSourceFile(String sourceFileChecksum) {
+        return sourceFileChecksum != null ?
+                Optional.ofNullable(entriesBySourceFile.get(sourceFileChecksum)) : Optional.empty();
     }
 
-    public synchronized boolean hasImportedSourceFile(String sourceFileChecksum) {
-        return getCollections().stream().flatMap(SavegameCollection::entryStream)
-                .anyMatch(ch -> ch.getSourceFileChecksums().contains(sourceFileChecksum));
+    public boolean hasImportedSourceFile(String sourceFileChecksum) {
+        return sourceFileChecksum != null && entriesBySourceFile.containsKey(sourceFileChecksum);
     }
 
     public Path getSavegameDataDirectory() {
@@ -832,4 +1378,8 @@ public abstract class SavegameStorage<
     public FailableBiFunction<Node, Boolean, I, SavegameInfoException> getInfoFactory() {
         return infoFactory;
     }
+
+    public NodeProjection getInfoProjection() {
+        return infoProjection;
+    }
 }
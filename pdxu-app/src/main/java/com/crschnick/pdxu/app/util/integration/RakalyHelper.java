@@ -1,15 +1,67 @@
 package com.crschnick.pdxu.app.util.integration;
 
+import com.crschnick.pdxu.app.core.ErrorHandler;
 import com.crschnick.pdxu.app.core.PdxuInstallation;
+import com.crschnick.pdxu.io.node.NodeProjection;
+import com.crschnick.pdxu.io.parser.BinaryFormatFlavor;
+import com.crschnick.pdxu.io.parser.BinaryTokenDictionary;
+import com.crschnick.pdxu.io.savegame.BinarySavegameStructure;
+import com.crschnick.pdxu.io.savegame.SavegameParseResult;
+import com.crschnick.pdxu.io.savegame.SavegameType;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RakalyHelper {
 
+    private static final Map<BinaryFormatFlavor, Optional<BinaryTokenDictionary>> TOKEN_DICTIONARIES = new ConcurrentHashMap<>();
+
+    private static Optional<BinaryTokenDictionary> getTokenDictionary(BinaryFormatFlavor flavor) {
+        return TOKEN_DICTIONARIES.computeIfAbsent(flavor, f -> {
+            var file = PdxuInstallation.getInstance().getResourceDir()
+                    .resolve("tokens").resolve(f.name().toLowerCase() + ".txt");
+            if (!Files.exists(file)) {
+                return Optional.empty();
+            }
+
+            try {
+                return Optional.of(BinaryTokenDictionary.load(file));
+            } catch (IOException ex) {
+                ErrorHandler.handleException(ex);
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Returns whether binary savegames of a type can be parsed in process, i.e. without melting them first.
+     */
+    public static boolean canParseBinary(SavegameType type) {
+        var flavor = BinarySavegameStructure.getFlavor(type);
+        return flavor != null && getTokenDictionary(flavor).isPresent();
+    }
+
+    /**
+     * Parses a binary savegame in process if a token dictionary for its game is installed.
+     * Otherwise, the savegame is melted by rakaly first.
+     */
+    public static SavegameParseResult parseBinary(SavegameType type, Path file, byte[] bytes, NodeProjection projection) throws Exception {
+        var flavor = BinarySavegameStructure.getFlavor(type);
+        var dictionary = flavor != null ? getTokenDictionary(flavor) : Optional.<BinaryTokenDictionary>empty();
+        if (dictionary.isPresent()) {
+            return new BinarySavegameStructure(type, dictionary.get()).parse(bytes, projection);
+        }
+
+        var melted = toPlaintext(file);
+        return type.determineStructure(melted).parse(melted, projection);
+    }
+
     public static Path meltSavegame(Path file) throws Exception {
         var proc = new ProcessBuilder(
                 PdxuInstallation.getInstance().getRakalyExecutable().toString(),
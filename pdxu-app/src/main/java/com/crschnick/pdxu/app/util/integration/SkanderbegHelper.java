@@ -28,7 +28,7 @@ public class SkanderbegHelper {
             return;
         }
 
-        TaskExecutor.getInstance().submitTask(() -> {
+        TaskExecutor.getInstance().submitTask(TaskExecutor.Lane.BACKGROUND, () -> {
             try {
                 byte[] body = Files.readAllBytes(SavegameStorage.ALL.get(Game.EU4).getSavegameFile(entry));
                 if (entry.getInfo().isIronman()) {
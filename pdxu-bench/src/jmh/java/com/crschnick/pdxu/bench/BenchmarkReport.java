@@ -0,0 +1,59 @@
+package com.crschnick.pdxu.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Runs the benchmarks with the usual JMH command line options and prints
+ * a summary of throughput in MB/s, the p99 latency and the allocation rate.
+ */
+public class BenchmarkReport {
+
+    public static void main(String[] args) throws Exception {
+        var cmd = new CommandLineOptions(args);
+        var opts = new OptionsBuilder()
+                .parent(cmd)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsPrepend("-Xmx" + System.getProperty("pdxu.bench.heap", "8g"))
+                .build();
+        Collection<RunResult> results = new Runner(opts).run();
+
+        System.out.println();
+        System.out.printf("%-45s %-10s %6s %12s %12s %10s %14s %16s%n",
+                "Benchmark", "Flavor", "MB", "mean (ms)", "p99 (ms)", "MB/s", "alloc (MB/s)", "alloc (B/op)");
+        for (RunResult r : results) {
+            var params = r.getParams();
+            int sizeMb = Integer.parseInt(params.getParam("sizeMb"));
+            var stats = r.getPrimaryResult().getStatistics();
+            double mean = stats.getMean();
+            System.out.printf("%-45s %-10s %6d %12.2f %12.2f %10.1f %14.1f %16.0f%n",
+                    shortName(params.getBenchmark()),
+                    params.getParam("flavor"),
+                    sizeMb,
+                    mean,
+                    stats.getPercentile(99.0),
+                    sizeMb / (mean / 1000.0),
+                    secondary(r.getSecondaryResults(), "gc.alloc.rate"),
+                    secondary(r.getSecondaryResults(), "gc.alloc.rate.norm"));
+        }
+    }
+
+    private static String shortName(String benchmark) {
+        return benchmark.substring(BenchmarkReport.class.getPackageName().length() + 1);
+    }
+
+    private static double secondary(Map<String, Result> results, String name) {
+        return results.entrySet().stream()
+                .filter(e -> e.getKey().endsWith(name))
+                .mapToDouble(e -> e.getValue().getScore())
+                .findFirst()
+                .orElse(Double.NaN);
+    }
+}
@@ -0,0 +1,506 @@
+package com.crschnick.pdxu.bench;
+
+import com.crschnick.pdxu.io.parser.TextFormatParser;
+import com.crschnick.pdxu.io.savegame.Ck3Header;
+import com.crschnick.pdxu.io.savegame.SavegameStructure;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates deterministic synthetic gamestates that resemble the token mix of real savegames.
+ * The output is only meant to be representative for benchmarking, not to be loadable by the games.
+ */
+public final class GamestateGenerator {
+
+    public static final int MB = 1024 * 1024;
+
+    private static final String[] EU4_TAGS = {"FRA", "ENG", "CAS", "POR", "HAB", "BOH", "POL", "MOS", "TUR", "MAM"};
+    private static final String[] CULTURES = {"cosmopolitan_french", "english", "castillian", "austrian", "polish"};
+    private static final String[] RELIGIONS = {"catholic", "protestant", "orthodox", "sunni", "shiite"};
+    private static final String[] NAMES = {"Louis", "Henry", "Fernando", "Albrecht", "Kazimierz", "G\u00f6rz", "Z\u00fcrich"};
+
+    private final Random random;
+    private final Charset charset;
+    private final ByteArrayOutputStream out;
+
+    private GamestateGenerator(Flavor flavor, long seed, int expectedSize) {
+        this.random = new Random(seed);
+        this.charset = flavor.getParser().getCharset();
+        this.out = new ByteArrayOutputStream(expectedSize + MB);
+    }
+
+    /**
+     * Generates the plain text gamestate content without any header.
+     */
+    public static byte[] generateGamestate(Flavor flavor, int size) {
+        var gen = new GamestateGenerator(flavor, 42, size);
+        switch (flavor) {
+            case EU4 -> gen.eu4Gamestate(size);
+            case CK3 -> gen.ck3Gamestate(size);
+            case STELLARIS -> gen.stellarisGamestate(size);
+        }
+        return gen.out.toByteArray();
+    }
+
+    /**
+     * Generates a complete savegame file in the format that {@link Flavor#getStructure()} expects.
+     */
+    public static byte[] generateSavegame(Flavor flavor, int size) {
+        var gamestate = generateGamestate(flavor, size);
+        var gen = new GamestateGenerator(flavor, 43, MB);
+        try {
+            switch (flavor) {
+                case EU4 -> {
+                    gen.eu4Meta();
+                    var header = "EU4txt\n".getBytes(StandardCharsets.ISO_8859_1);
+                    return zip(new String[]{"meta", "ai", "gamestate"}, new byte[][]{
+                            concat(header, gen.out.toByteArray()),
+                            concat(header, "ai={ initialized=yes }\n".getBytes(StandardCharsets.ISO_8859_1)),
+                            concat(header, gamestate)});
+                }
+                case CK3 -> {
+                    // The CK3 meta data block is also contained at the beginning of the gamestate
+                    var metaEnd = indexOf(gamestate, "\ndate=".getBytes(StandardCharsets.UTF_8));
+                    var header = new Ck3Header(true, false, false, metaEnd).toString() + "\n";
+                    return concat(header.getBytes(StandardCharsets.UTF_8), gamestate);
+                }
+                case STELLARIS -> {
+                    gen.stellarisMeta();
+                    return zip(new String[]{"meta", "gamestate"}, new byte[][]{gen.out.toByteArray(), gamestate});
+                }
+                default -> throw new AssertionError();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] zip(String[] names, byte[][] contents) throws IOException {
+        var bout = new ByteArrayOutputStream();
+        try (var zout = new ZipOutputStream(bout)) {
+            for (int i = 0; i < names.length; i++) {
+                zout.putNextEntry(new ZipEntry(names[i]));
+                zout.write(contents[i]);
+                zout.closeEntry();
+            }
+        }
+        return bout.toByteArray();
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        var r = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, r, a.length, b.length);
+        return r;
+    }
+
+    private static int indexOf(byte[] array, byte[] search) {
+        for (int i = 0; i <= array.length - search.length; i++) {
+            if (Arrays.equals(array, i, i + search.length, search, 0, search.length)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException();
+    }
+
+    private void w(String s) {
+        out.writeBytes(s.getBytes(charset));
+    }
+
+    private void kv(int indent, String key, String value) {
+        tabs(indent);
+        w(key);
+        w("=");
+        w(value);
+        w("\n");
+    }
+
+    private void open(int indent, String key) {
+        tabs(indent);
+        if (key != null) {
+            w(key);
+            w("=");
+        }
+        w("{\n");
+    }
+
+    private void close(int indent) {
+        tabs(indent);
+        w("}\n");
+    }
+
+    private void tabs(int indent) {
+        for (int i = 0; i < indent; i++) {
+            out.write('\t');
+        }
+    }
+
+    private String quoted(String s) {
+        return "\"" + s + "\"";
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private String date() {
+        return (1444 + random.nextInt(377)) + "." + (1 + random.nextInt(12)) + "." + (1 + random.nextInt(28));
+    }
+
+    private String decimal() {
+        int v = random.nextInt(1000000);
+        return (v / 1000) + "." + (v % 1000 < 100 ? (v % 1000 < 10 ? "00" : "0") : "") + (v % 1000);
+    }
+
+    private String yesNo() {
+        return random.nextBoolean() ? "yes" : "no";
+    }
+
+    private String intList(int count, int bound) {
+        var sb = new StringBuilder("{ ");
+        for (int i = 0; i < count; i++) {
+            sb.append(random.nextInt(bound)).append(' ');
+        }
+        return sb.append('}').toString();
+    }
+
+    private void eu4Meta() {
+        kv(0, "date", "1444.11.11");
+        kv(0, "save_game", quoted("autosave.eu4"));
+        kv(0, "player", quoted("FRA"));
+        kv(0, "displayed_country_name", quoted("France"));
+        open(0, "savegame_version");
+        kv(1, "first", "1");
+        kv(1, "second", "31");
+        kv(1, "third", "6");
+        kv(1, "forth", "0");
+        kv(1, "name", quoted("Majapahit"));
+        close(0);
+        open(0, "dlc_enabled");
+        tabs(1);
+        w(quoted("Conquest of Paradise") + " " + quoted("Wealth of Nations") + " " + quoted("Art of War") + "\n");
+        close(0);
+        kv(0, "iron_man", "no");
+    }
+
+    private void eu4Gamestate(int size) {
+        eu4Meta();
+        kv(0, "multi_player", "no");
+        kv(0, "not_observer", "yes");
+
+        // Key without equals sign
+        tabs(0);
+        w("map_area_data{\n");
+        for (int i = 0; i < 40; i++) {
+            open(1, "area_" + i);
+            open(2, "state");
+            kv(3, "area", "area_" + i);
+            open(3, "country_state");
+            kv(4, "prosperity", decimal());
+            kv(4, "country", quoted(pick(EU4_TAGS)));
+            close(3);
+            close(2);
+            close(1);
+        }
+        close(0);
+
+        open(0, "provinces");
+        for (int p = 1; out.size() < size * 0.55; p++) {
+            var owner = pick(EU4_TAGS);
+            open(1, "-" + p);
+            kv(2, "name", quoted(pick(NAMES)));
+            kv(2, "owner", quoted(owner));
+            kv(2, "controller", quoted(owner));
+            open(2, "cores");
+            tabs(3);
+            w(quoted(owner) + "\n");
+            close(2);
+            kv(2, "culture", pick(CULTURES));
+            kv(2, "religion", pick(RELIGIONS));
+            kv(2, "base_tax", decimal());
+            kv(2, "base_production", decimal());
+            kv(2, "base_manpower", decimal());
+            kv(2, "trade_goods", "grain");
+            kv(2, "hre", yesNo());
+            open(2, "history");
+            for (int h = 0; h < 4; h++) {
+                open(3, date());
+                kv(4, "owner", quoted(pick(EU4_TAGS)));
+                kv(4, "add_core", quoted(pick(EU4_TAGS)));
+                close(3);
+            }
+            close(2);
+            kv(2, "discovered_by", intList(8, 600));
+            close(1);
+        }
+        close(0);
+
+        open(0, "countries");
+        for (int c = 0; out.size() < size * 0.95; c++) {
+            open(1, c < EU4_TAGS.length ? EU4_TAGS[c] : String.format("X%02d", c % 100) + c / 100);
+            kv(2, "human", yesNo());
+            kv(2, "treasury", decimal());
+            kv(2, "manpower", decimal());
+            kv(2, "max_manpower", decimal());
+            kv(2, "stability", "1.000");
+            kv(2, "prestige", decimal());
+            kv(2, "raw_development", decimal());
+            kv(2, "development", decimal());
+            kv(2, "decision_seed", String.valueOf(random.nextInt(100000)));
+            kv(2, "powers", intList(3, 999));
+            kv(2, "primary_culture", pick(CULTURES));
+            kv(2, "religion", pick(RELIGIONS));
+            open(2, "monarch");
+            kv(3, "id", String.valueOf(random.nextInt(10000)));
+            kv(3, "type", "48");
+            close(2);
+            open(2, "history");
+            for (int h = 0; h < 6; h++) {
+                open(3, date());
+                open(4, "monarch");
+                kv(5, "name", quoted(pick(NAMES)));
+                kv(5, "ADM", String.valueOf(random.nextInt(7)));
+                kv(5, "DIP", String.valueOf(random.nextInt(7)));
+                kv(5, "MIL", String.valueOf(random.nextInt(7)));
+                open(5, "id");
+                kv(6, "id", String.valueOf(random.nextInt(10000)));
+                kv(6, "type", "48");
+                close(5);
+                close(4);
+                close(3);
+            }
+            close(2);
+            for (int l = 0; l < 2; l++) {
+                open(2, "loan");
+                kv(3, "amount", decimal());
+                kv(3, "expiry_date", date());
+                close(2);
+            }
+            close(1);
+        }
+        close(0);
+
+        open(0, "diplomacy");
+        while (out.size() < size) {
+            open(1, random.nextBoolean() ? "alliance" : "dependency");
+            kv(2, "first", quoted(pick(EU4_TAGS)));
+            kv(2, "second", quoted(pick(EU4_TAGS)));
+            kv(2, "subject_type", quoted("vassal"));
+            kv(2, "start_date", date());
+            close(1);
+        }
+        close(0);
+    }
+
+    private void ck3Color(int indent, String key) {
+        tabs(indent);
+        w(key + "=rgb { " + random.nextInt(256) + " " + random.nextInt(256) + " " + random.nextInt(256) + " }\n");
+    }
+
+    private void ck3CoatOfArms(int indent, String key) {
+        open(indent, key);
+        kv(indent + 1, "pattern", quoted("pattern_solid.dds"));
+        ck3Color(indent + 1, "color1");
+        ck3Color(indent + 1, "color2");
+        tabs(indent + 1);
+        w("colored_emblem={\n");
+        kv(indent + 2, "texture", quoted("ce_lion_rampant.dds"));
+        open(indent + 2, "instance");
+        kv(indent + 3, "position", "{ 0.500000 0.500000 }");
+        kv(indent + 3, "scale", "{ 0.800000 0.800000 }");
+        close(indent + 2);
+        close(indent + 1);
+        close(indent);
+    }
+
+    private void ck3Gamestate(int size) {
+        open(0, "meta_data");
+        kv(1, "save_game_version", "3");
+        kv(1, "version", quoted("1.4.4"));
+        kv(1, "portraits_version", "3");
+        kv(1, "meta_date", "1066.9.15");
+        kv(1, "meta_player_name", quoted("Duke William"));
+        kv(1, "meta_title_name", quoted("Normandy"));
+        kv(1, "meta_house_name", quoted("Normandie"));
+        ck3CoatOfArms(1, "meta_coat_of_arms");
+        ck3CoatOfArms(1, "meta_house_coat_of_arms");
+        open(1, "dlcs");
+        close(1);
+        kv(1, "ironman", "no");
+        close(0);
+        kv(0, "date", "1066.9.15");
+        kv(0, "random_seed", String.valueOf(random.nextInt(Integer.MAX_VALUE)));
+        kv(0, "currently_played_characters", "{ 1 }");
+
+        open(0, "coat_of_arms");
+        open(1, "coat_of_arms_manager_database");
+        for (int c = 1; out.size() < size * 0.15; c++) {
+            ck3CoatOfArms(2, String.valueOf(c));
+        }
+        close(1);
+        close(0);
+
+        open(0, "living");
+        for (int id = 1; out.size() < size * 0.9; id++) {
+            open(1, String.valueOf(id));
+            kv(2, "first_name", quoted(pick(NAMES)));
+            kv(2, "birth", (1000 + random.nextInt(66)) + "." + (1 + random.nextInt(12)) + "." + (1 + random.nextInt(28)));
+            kv(2, "culture", String.valueOf(random.nextInt(200)));
+            kv(2, "faith", String.valueOf(random.nextInt(100)));
+            kv(2, "dynasty_house", String.valueOf(random.nextInt(5000)));
+            kv(2, "skill", intList(6, 20));
+            kv(2, "traits", intList(4, 300));
+            open(2, "family_data");
+            kv(3, "primary_spouse", String.valueOf(random.nextInt(100000)));
+            kv(3, "child", intList(3, 100000));
+            close(2);
+            open(2, "alive_data");
+            kv(3, "gold", decimal());
+            kv(3, "income", decimal());
+            open(3, "piety");
+            kv(4, "currency", decimal());
+            kv(4, "accumulated", decimal());
+            close(3);
+            open(3, "prestige");
+            kv(4, "currency", decimal());
+            kv(4, "accumulated", decimal());
+            close(3);
+            close(2);
+            if (id % 5 == 1) {
+                open(2, "landed_data");
+                kv(3, "domain", intList(3, 5000));
+                kv(3, "government", quoted("feudal_government"));
+                kv(3, "balance", decimal());
+                kv(3, "strength", decimal());
+                close(2);
+            }
+            close(1);
+        }
+        close(0);
+
+        open(0, "character_lookup");
+        while (out.size() < size) {
+            kv(1, String.valueOf(random.nextInt(1000000)), String.valueOf(random.nextInt(1000000)));
+        }
+        close(0);
+    }
+
+    private void stellarisColor(int indent, String key) {
+        tabs(indent);
+        w(key + "=hsv { " + decimal() + " " + decimal() + " " + decimal() + " }\n");
+    }
+
+    private void stellarisMeta() {
+        kv(0, "version", quoted("Herbert v3.0.3"));
+        kv(0, "version_control_revision", "53201");
+        kv(0, "name", quoted("United Nations of Earth"));
+        kv(0, "date", quoted("2200.01.01"));
+        open(0, "flag");
+        open(1, "icon");
+        kv(2, "category", quoted("human"));
+        kv(2, "file", quoted("flag_human_9.dds"));
+        close(1);
+        kv(1, "colors", "{ \"blue\" \"black\" \"null\" \"null\" }");
+        close(0);
+        kv(0, "meta_fleets", "4");
+        kv(0, "meta_planets", "1");
+    }
+
+    private void stellarisGamestate(int size) {
+        stellarisMeta();
+        kv(0, "player", "{ { name=\"unknown\" country=0 } }");
+        kv(0, "tick", "0");
+
+        open(0, "species_db");
+        for (int s = 0; s < 200; s++) {
+            open(1, String.valueOf(s));
+            kv(2, "name_list", quoted("HUM1"));
+            kv(2, "name", quoted("Human"));
+            kv(2, "class", quoted("HUM"));
+            kv(2, "traits", "{ trait=\"trait_adaptive\" trait=\"trait_nomadic\" }");
+            close(1);
+        }
+        close(0);
+
+        open(0, "planets");
+        open(1, "planet");
+        for (int p = 0; out.size() < size * 0.6; p++) {
+            open(2, String.valueOf(p));
+            kv(3, "name", quoted(pick(NAMES)));
+            kv(3, "planet_class", quoted("pc_continental"));
+            open(3, "coordinate");
+            kv(4, "x", decimal());
+            kv(4, "y", decimal());
+            kv(4, "origin", "4294967295");
+            close(3);
+            kv(3, "orbit", "30");
+            kv(3, "planet_size", String.valueOf(random.nextInt(25)));
+            kv(3, "owner", String.valueOf(random.nextInt(50)));
+            kv(3, "pops", intList(6, 100000));
+            kv(3, "colonize_date", quoted("2200.01.01"));
+            close(2);
+        }
+        close(1);
+        close(0);
+
+        open(0, "country");
+        for (int c = 0; out.size() < size; c++) {
+            open(1, String.valueOf(c));
+            open(2, "flag");
+            open(3, "icon");
+            kv(4, "category", quoted("human"));
+            kv(4, "file", quoted("flag_human_9.dds"));
+            close(3);
+            kv(3, "colors", "{ \"blue\" \"black\" \"null\" \"null\" }");
+            close(2);
+            stellarisColor(2, "color");
+            kv(2, "name", quoted(pick(NAMES)));
+            kv(2, "military_power", decimal());
+            kv(2, "economy_power", decimal());
+            open(2, "budget");
+            open(3, "current_month");
+            open(4, "income");
+            kv(5, "country_base", "{ energy=20 minerals=15 }");
+            close(4);
+            close(3);
+            close(2);
+            open(2, "modules");
+            open(3, "standard_economy_module");
+            kv(4, "resources", "{ energy=" + decimal() + " minerals=" + decimal() + " food=" + decimal() + " }");
+            close(3);
+            close(2);
+            kv(2, "owned_planets", intList(5, 10000));
+            close(1);
+        }
+        close(0);
+    }
+
+    public enum Flavor {
+        EU4(TextFormatParser.eu4(), SavegameStructure.EU4_COMPRESSED),
+        CK3(TextFormatParser.ck3(), SavegameStructure.CK3_PLAINTEXT),
+        STELLARIS(TextFormatParser.stellaris(), SavegameStructure.STELLARIS);
+
+        private final TextFormatParser parser;
+        private final SavegameStructure structure;
+
+        Flavor(TextFormatParser parser, SavegameStructure structure) {
+            this.parser = parser;
+            this.structure = structure;
+        }
+
+        public TextFormatParser getParser() {
+            return parser;
+        }
+
+        public SavegameStructure getStructure() {
+            return structure;
+        }
+    }
+}
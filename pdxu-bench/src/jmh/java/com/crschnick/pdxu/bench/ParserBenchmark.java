@@ -0,0 +1,79 @@
+package com.crschnick.pdxu.bench;
+
+import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.NodeContext;
+import com.crschnick.pdxu.io.parser.NodeVisitor;
+import com.crschnick.pdxu.io.parser.ParseException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParserBenchmark {
+
+    @Param({"EU4", "CK3", "STELLARIS"})
+    public GamestateGenerator.Flavor flavor;
+
+    @Param({"1", "50", "200"})
+    public int sizeMb;
+
+    private byte[] input;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        input = GamestateGenerator.generateGamestate(flavor, sizeMb * GamestateGenerator.MB);
+        file = Files.createTempFile("pdxu-bench", ".txt");
+        Files.write(file, input);
+
+        // The file might still be mapped at the end of the trial, which prevents deleting it on Windows
+        file.toFile().deleteOnExit();
+    }
+
+    @Benchmark
+    public ArrayNode parse() throws ParseException {
+        return flavor.getParser().parse(input, 0, false);
+    }
+
+    @Benchmark
+    public ArrayNode parseParallel() throws ParseException {
+        return flavor.getParser().parallel().parse(input, 0, false);
+    }
+
+    @Benchmark
+    public ArrayNode parseTape() throws ParseException {
+        return flavor.getParser().tape().parse(input, 0, false);
+    }
+
+    @Benchmark
+    public long visitStream() throws IOException, ParseException {
+        long[] count = new long[1];
+        try (var in = Files.newInputStream(file)) {
+            flavor.getParser().visit(in, new NodeVisitor() {
+                @Override
+                public void scalar(NodeContext context, int scalarIndex) {
+                    count[0]++;
+                }
+            });
+        }
+        return count[0];
+    }
+
+    @Benchmark
+    public ArrayNode parseMapped() throws IOException, ParseException {
+        try (var channel = FileChannel.open(file)) {
+            return flavor.getParser().parse(channel, false);
+        }
+    }
+
+    @Benchmark
+    public ArrayNode parseStrict() throws ParseException {
+        return flavor.getParser().parse(input, 0, true);
+    }
+}
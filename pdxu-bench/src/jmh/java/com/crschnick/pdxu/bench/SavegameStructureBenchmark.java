@@ -0,0 +1,36 @@
+package com.crschnick.pdxu.bench;
+
+import com.crschnick.pdxu.io.savegame.SavegameParseResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SavegameStructureBenchmark {
+
+    @Param({"EU4", "CK3", "STELLARIS"})
+    public GamestateGenerator.Flavor flavor;
+
+    @Param({"1", "50", "200"})
+    public int sizeMb;
+
+    private byte[] input;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        input = GamestateGenerator.generateSavegame(flavor, sizeMb * GamestateGenerator.MB);
+
+        // Fail early instead of benchmarking the error path
+        var result = flavor.getStructure().parse(input);
+        if (result.success().isEmpty()) {
+            throw new IllegalStateException("Generated " + flavor + " savegame could not be parsed");
+        }
+    }
+
+    @Benchmark
+    public SavegameParseResult parse() {
+        return flavor.getStructure().parse(input);
+    }
+}
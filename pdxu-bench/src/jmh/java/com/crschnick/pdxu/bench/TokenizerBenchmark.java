@@ -0,0 +1,41 @@
+package com.crschnick.pdxu.bench;
+
+import com.crschnick.pdxu.io.parser.ParallelTextFormatTokenizer;
+import com.crschnick.pdxu.io.parser.ParseException;
+import com.crschnick.pdxu.io.parser.TextFormatTokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TokenizerBenchmark {
+
+    @Param({"EU4", "CK3", "STELLARIS"})
+    public GamestateGenerator.Flavor flavor;
+
+    @Param({"1", "50", "200"})
+    public int sizeMb;
+
+    private byte[] input;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        input = GamestateGenerator.generateGamestate(flavor, sizeMb * GamestateGenerator.MB);
+    }
+
+    @Benchmark
+    public TextFormatTokenizer tokenize() throws ParseException {
+        var tokenizer = new TextFormatTokenizer(input, 0, false);
+        tokenizer.tokenize();
+        return tokenizer;
+    }
+
+    @Benchmark
+    public ParallelTextFormatTokenizer tokenizeParallel() throws ParseException {
+        var tokenizer = new ParallelTextFormatTokenizer(input, 0, false, Runtime.getRuntime().availableProcessors());
+        tokenizer.tokenize();
+        return tokenizer;
+    }
+}
@@ -0,0 +1,54 @@
+package com.crschnick.pdxu.bench;
+
+import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.NodeProjection;
+import com.crschnick.pdxu.io.node.NodeWriter;
+import com.crschnick.pdxu.io.parser.ParseException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WriterBenchmark {
+
+    @Param({"EU4", "CK3", "STELLARIS"})
+    public GamestateGenerator.Flavor flavor;
+
+    @Param({"1", "50", "200"})
+    public int sizeMb;
+
+    private ArrayNode node;
+    private ArrayNode projectedNode;
+
+    @Setup(Level.Trial)
+    public void setup() throws ParseException {
+        var input = GamestateGenerator.generateGamestate(flavor, sizeMb * GamestateGenerator.MB);
+        node = flavor.getParser().parse(input, 0, false);
+
+        // A projected tree is not written by copying its source text, so every node is serialized
+        projectedNode = flavor.getParser().project(NodeProjection.of(NodeProjection.WILDCARD)).parse(input, 0, false);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        NodeWriter.write(OutputStream.nullOutputStream(), flavor.getParser().getCharset(), node, "\t", 0);
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        NodeWriter.write(OutputStream.nullOutputStream(), flavor.getParser().getCharset(), projectedNode, "\t", 0);
+    }
+
+    @Benchmark
+    public void writeTranscoded() throws IOException {
+        // Forces the charset conversion path for ISO-8859-1 games and vice versa
+        var charset = flavor.getParser().getCharset().equals(StandardCharsets.UTF_8) ?
+                StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8;
+        NodeWriter.write(OutputStream.nullOutputStream(), charset, node, "\t", 0);
+    }
+}
@@ -71,7 +71,7 @@ public class Editor implements EditorProvider {
     }
 
     public void createNewEditor(EditTarget target) {
-        TaskExecutor.getInstance().submitTask(() -> {
+        TaskExecutor.getInstance().submitTask(TaskExecutor.Lane.BACKGROUND, () -> {
             Map<String, ArrayNode> nodes;
             try {
                 nodes = target.parse();
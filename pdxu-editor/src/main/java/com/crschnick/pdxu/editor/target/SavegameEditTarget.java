@@ -4,6 +4,7 @@ import com.crschnick.pdxu.app.installation.GameFileContext;
 import com.crschnick.pdxu.app.util.integration.RakalyHelper;
 import com.crschnick.pdxu.io.node.ArrayNode;
 import com.crschnick.pdxu.io.parser.TextFormatParser;
+import com.crschnick.pdxu.io.savegame.SavegameIndex;
 import com.crschnick.pdxu.io.savegame.SavegameStructure;
 import com.crschnick.pdxu.io.savegame.SavegameType;
 
@@ -35,12 +36,14 @@ public class SavegameEditTarget extends EditTarget {
     @Override
     public Map<String, ArrayNode> parse() throws Exception {
         var bytes = Files.readAllBytes(file);
-        binary = type.isBinary(bytes);
-        if (type.isBinary(bytes)) {
+        var probe = type.probe(bytes);
+        binary = probe.binary();
+        if (binary) {
             bytes = RakalyHelper.toPlaintext(file);
+            probe = type.probe(bytes);
         }
 
-        structure = type.determineStructure(bytes);
+        structure = probe.structure();
         var succ = structure.parse(bytes).success();
         if (succ.isPresent()) {
             return succ.get().content;
@@ -49,6 +52,26 @@ public class SavegameEditTarget extends EditTarget {
         }
     }
 
+    /**
+     * Parses the savegame from its stored tokens. The file is still read to determine its structure.
+     */
+    public Map<String, ArrayNode> parse(SavegameIndex index) throws Exception {
+        var bytes = Files.readAllBytes(file);
+        var probe = type.probe(bytes);
+        if (probe.binary()) {
+            return parse();
+        }
+
+        binary = false;
+        structure = probe.structure();
+        var succ = index.parse(type, null).success();
+        if (succ.isPresent()) {
+            return succ.get().content;
+        } else {
+            return parse();
+        }
+    }
+
     @Override
     public void write(Map<String, ArrayNode> nodeMap) throws Exception {
         structure.write(file, nodeMap);
@@ -39,6 +39,12 @@ public class StorageEditTarget<T, I extends SavegameInfo<T>> extends EditTarget
 
     @Override
     public Map<String, ArrayNode> parse() throws Exception {
+        if (target instanceof SavegameEditTarget t) {
+            var index = storage.getSavegameIndex(entry);
+            if (index.isPresent()) {
+                return t.parse(index.get());
+            }
+        }
         return target.parse();
     }
 
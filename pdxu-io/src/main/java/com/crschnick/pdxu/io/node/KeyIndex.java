@@ -0,0 +1,68 @@
+package com.crschnick.pdxu.io.node;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table from the key bytes to the first index of that key.
+ * All further indices of the same key are chained in ascending order.
+ * The key scalars of an array are read from {@code keys[offset + i * stride]}, with -1 meaning no key.
+ */
+final class KeyIndex {
+
+    // Arrays smaller than this are always scanned linearly
+    static final int MIN_SIZE = 8;
+    static final int MIN_LOOKUPS = 4;
+    static final int LARGE_SIZE = 64;
+
+    private final int[] hashes;
+    private final int[] firstIndices;
+    final int[] next;
+    private final int mask;
+
+    KeyIndex(NodeContext context, int[] keys, int offset, int stride, int size) {
+        int capacity = Integer.highestOneBit(Math.max(size, 2) * 2 - 1) << 1;
+        this.hashes = new int[capacity];
+        this.firstIndices = new int[capacity];
+        this.next = new int[size];
+        this.mask = capacity - 1;
+        Arrays.fill(firstIndices, -1);
+
+        // Insert in reverse order, so that every key ends up at its first index
+        for (int i = size - 1; i >= 0; i--) {
+            next[i] = -1;
+            int key = keys[offset + i * stride];
+            if (key == -1) {
+                continue;
+            }
+
+            int hash = mix(context.literalHashCode(key));
+            int slot = hash & mask;
+            while (firstIndices[slot] != -1) {
+                int other = firstIndices[slot];
+                if (hashes[slot] == hash && context.literalEquals(key, keys[offset + other * stride])) {
+                    next[i] = other;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            firstIndices[slot] = i;
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    int indexOf(NodeContext context, int[] keys, int offset, int stride, byte[] b) {
+        int hash = mix(Arrays.hashCode(b));
+        int slot = hash & mask;
+        while (firstIndices[slot] != -1) {
+            if (hashes[slot] == hash && context.literalEquals(keys[offset + firstIndices[slot] * stride], b)) {
+                return firstIndices[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+}
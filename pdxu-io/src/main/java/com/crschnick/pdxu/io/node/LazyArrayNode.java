@@ -0,0 +1,127 @@
+package com.crschnick.pdxu.io.node;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+/**
+ * An array node whose content is only created when it is accessed for the first time.
+ * The loader is called at most once and all calls are then delegated to the loaded node.
+ */
+public final class LazyArrayNode extends ArrayNode {
+
+    private Supplier<ArrayNode> loader;
+    private volatile ArrayNode node;
+
+    public LazyArrayNode(Supplier<ArrayNode> loader) {
+        this.loader = Objects.requireNonNull(loader);
+    }
+
+    public boolean isLoaded() {
+        return node != null;
+    }
+
+    public ArrayNode getLoadedNode() {
+        var n = node;
+        if (n != null) {
+            return n;
+        }
+
+        synchronized (this) {
+            if (node == null) {
+                node = Objects.requireNonNull(loader.get());
+                loader = null;
+            }
+            return node;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return isLoaded() ? getLoadedNode().toString() : "LazyArrayNode";
+    }
+
+    @Override
+    public Descriptor describe() {
+        return getLoadedNode().describe();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Node> c, boolean includeNullKeys) {
+        getLoadedNode().forEach(c, includeNullKeys);
+    }
+
+    @Override
+    public boolean forEach(BiPredicate<String, Node> c, boolean includeNullKeys) {
+        return getLoadedNode().forEach(c, includeNullKeys);
+    }
+
+    @Override
+    public int size() {
+        return getLoadedNode().size();
+    }
+
+    @Override
+    public boolean isKeyAt(String key, int index) {
+        return getLoadedNode().isKeyAt(key, index);
+    }
+
+    @Override
+    public ArrayNode splice(int begin, int length) {
+        return getLoadedNode().splice(begin, length);
+    }
+
+    @Override
+    protected void writeInternal(NodeWriter writer) throws IOException {
+        getLoadedNode().writeInternal(writer);
+    }
+
+    @Override
+    protected void writeFlatInternal(NodeWriter writer) throws IOException {
+        getLoadedNode().writeFlatInternal(writer);
+    }
+
+    @Override
+    protected boolean isFlat() {
+        return getLoadedNode().isFlat();
+    }
+
+    @Override
+    public String getKeyAt(int index) {
+        return getLoadedNode().getKeyAt(index);
+    }
+
+    @Override
+    public List<Node> getNodeArray() {
+        return getLoadedNode().getNodeArray();
+    }
+
+    @Override
+    public boolean matches(NodeMatcher matcher) {
+        return getLoadedNode().matches(matcher);
+    }
+
+    @Override
+    public boolean hasKey(String key) {
+        return getLoadedNode().hasKey(key);
+    }
+
+    @Override
+    public Node getNodeForKey(String key) {
+        return getLoadedNode().getNodeForKey(key);
+    }
+
+    @Override
+    public Optional<Node> getNodeForKeyIfExistent(String key) {
+        return getLoadedNode().getNodeForKeyIfExistent(key);
+    }
+
+    @Override
+    public List<Node> getNodesForKey(String key) {
+        return getLoadedNode().getNodesForKey(key);
+    }
+}
@@ -1,53 +1,243 @@
 package com.crschnick.pdxu.io.node;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
 
 public final class NodeContext {
 
     private final byte[] data;
+    private final ByteBuffer buffer;
     private final Charset charset;
     private final int[] literalsBegin;
     private final short[] literalsLength;
     private final int literalsCount;
+    private final boolean source;
+    private SymbolTable symbols;
+    private BitSet modifiedLiterals;
 
     public NodeContext() {
         this.data = null;
+        this.buffer = null;
         this.charset = StandardCharsets.UTF_8;
         this.literalsBegin = null;
         this.literalsLength = null;
         this.literalsCount = 0;
+        this.source = false;
     }
 
     public NodeContext(String data, boolean quoted) {
         this.data = quoted ? ("\"" + StringValues.escapeStringContent(data) + "\"").getBytes() :
                 StringValues.escapeStringContent(data).getBytes();
+        this.buffer = null;
         this.charset = StandardCharsets.UTF_8;
         this.literalsBegin = new int[]{0};
         this.literalsLength = new short[]{(short) this.data.length};
         this.literalsCount = 1;
+        this.source = false;
     }
 
     public NodeContext(byte[] data, Charset charset, int[] literalsBegin, short[] literalsLength, int literalsCount) {
+        this(data, charset, literalsBegin, literalsLength, literalsCount, false);
+    }
+
+    /**
+     * Creates a context for literals that were read from data.
+     * If the data is the complete source text of the parsed nodes, unchanged arrays are written by copying their source.
+     */
+    public NodeContext(byte[] data, Charset charset, int[] literalsBegin, short[] literalsLength, int literalsCount, boolean source) {
         this.data = data;
+        this.buffer = null;
+        this.charset = charset;
+        this.literalsBegin = literalsBegin;
+        this.literalsLength = literalsLength;
+        this.literalsCount = literalsCount;
+        this.source = source;
+    }
+
+    /**
+     * Creates a context that reads all literals directly from a buffer, e.g. a memory mapped file.
+     * For these contexts, {@link #getData()} returns null.
+     */
+    public NodeContext(ByteBuffer buffer, Charset charset, int[] literalsBegin, short[] literalsLength, int literalsCount) {
+        this(buffer, charset, literalsBegin, literalsLength, literalsCount, false);
+    }
+
+    public NodeContext(ByteBuffer buffer, Charset charset, int[] literalsBegin, short[] literalsLength, int literalsCount, boolean source) {
+        this.data = null;
+        this.buffer = buffer;
         this.charset = charset;
         this.literalsBegin = literalsBegin;
         this.literalsLength = literalsLength;
         this.literalsCount = literalsCount;
+        this.source = source;
     }
 
     public String evaluate(int literalIndex) {
         return StringValues.unescapeScalarValue(this, literalIndex);
     }
 
+    /**
+     * Evaluates a key literal. Most keys are interned in a symbol table,
+     * so that evaluating them again does not create a new string.
+     */
+    public String evaluateKey(int literalIndex) {
+        if (!SymbolTable.isInternable(this, literalIndex)) {
+            return evaluate(literalIndex);
+        }
+
+        return internKey(literalIndex);
+    }
+
+    private synchronized String internKey(int literalIndex) {
+        if (symbols == null) {
+            symbols = new SymbolTable();
+        }
+        return symbols.intern(this, literalIndex);
+    }
+
     public String evaluateRaw(int literalIndex) {
-        return new String(getData(), literalsBegin[literalIndex], literalsLength[literalIndex], getCharset());
+        if (data != null) {
+            return new String(data, literalsBegin[literalIndex], literalsLength[literalIndex], getCharset());
+        }
+
+        return new String(getLiteralBytes(literalIndex), getCharset());
+    }
+
+    public byte[] getLiteralBytes(int literalIndex) {
+        var begin = literalsBegin[literalIndex];
+        var length = literalsLength[literalIndex];
+        if (data != null) {
+            return Arrays.copyOfRange(data, begin, begin + length);
+        }
+
+        var bytes = new byte[length];
+        buffer.get(begin, bytes);
+        return bytes;
+    }
+
+    public boolean literalEquals(int literalIndex, byte[] b) {
+        var begin = literalsBegin[literalIndex];
+        var length = literalsLength[literalIndex];
+        if (length != b.length) {
+            return false;
+        }
+
+        if (data != null) {
+            return Arrays.equals(data, begin, begin + length, b, 0, length);
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(begin + i) != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean literalEquals(int literalIndex, int otherLiteralIndex) {
+        var begin = literalsBegin[literalIndex];
+        var otherBegin = literalsBegin[otherLiteralIndex];
+        var length = literalsLength[literalIndex];
+        if (length != literalsLength[otherLiteralIndex]) {
+            return false;
+        }
+
+        if (data != null) {
+            return Arrays.equals(data, begin, begin + length, data, otherBegin, otherBegin + length);
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(begin + i) != buffer.get(otherBegin + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the same value as {@link Arrays#hashCode(byte[])} for the bytes of a literal.
+     */
+    public int literalHashCode(int literalIndex) {
+        var begin = literalsBegin[literalIndex];
+        var end = begin + literalsLength[literalIndex];
+        int h = 1;
+        if (data != null) {
+            for (int i = begin; i < end; i++) {
+                h = 31 * h + data[i];
+            }
+        } else {
+            for (int i = begin; i < end; i++) {
+                h = 31 * h + buffer.get(i);
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Records that a node which was read from a literal has been changed,
+     * so that the arrays containing it are no longer written by copying their source.
+     */
+    synchronized void markModified(int literalIndex) {
+        if (!source) {
+            return;
+        }
+
+        if (modifiedLiterals == null) {
+            modifiedLiterals = new BitSet(literalsCount);
+        }
+        modifiedLiterals.set(literalIndex);
+    }
+
+    synchronized boolean isModified(int fromLiteral, int toLiteral) {
+        if (modifiedLiterals == null) {
+            return false;
+        }
+
+        int next = modifiedLiterals.nextSetBit(fromLiteral);
+        return next != -1 && next <= toLiteral;
+    }
+
+    /**
+     * Writes a range of the data as is.
+     */
+    public void writeData(OutputStream out, int begin, int end) throws IOException {
+        if (data != null) {
+            out.write(data, begin, end - begin);
+            return;
+        }
+
+        var bytes = new byte[Math.min(end - begin, 8192)];
+        for (int i = begin; i < end; i += bytes.length) {
+            int length = Math.min(bytes.length, end - i);
+            buffer.get(i, bytes, 0, length);
+            out.write(bytes, 0, length);
+        }
+    }
+
+    public byte getByte(int offset) {
+        return data != null ? data[offset] : buffer.get(offset);
+    }
+
+    public int getDataLength() {
+        return data != null ? data.length : buffer.limit();
     }
 
     public byte[] getData() {
         return data;
     }
 
+    /**
+     * Returns whether the data is the source text that the literals and their arrays were parsed from.
+     */
+    public boolean isSource() {
+        return source;
+    }
+
     public Charset getCharset() {
         return charset;
     }
@@ -59,4 +249,8 @@ public final class NodeContext {
     public short[] getLiteralsLength() {
         return literalsLength;
     }
+
+    public int getLiteralsCount() {
+        return literalsCount;
+    }
 }
@@ -8,4 +8,8 @@ public class NodeFormatException extends RuntimeException {
     public NodeFormatException(String message) {
         super(message);
     }
+
+    public NodeFormatException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
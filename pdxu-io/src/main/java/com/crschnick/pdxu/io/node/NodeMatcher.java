@@ -43,6 +43,10 @@ public abstract class NodeMatcher {
                 updateBytes();
             }
 
+            if (ctx.getData() == null) {
+                return contains(ctx.getLiteralBytes(index), 0, ctx.getLiteralsLength()[index]);
+            }
+
             return contains(ctx.getData(), ctx.getLiteralsBegin()[index], ctx.getLiteralsLength()[index]);
         }
 
@@ -101,6 +105,10 @@ public abstract class NodeMatcher {
                 currentCharset = ctx.getCharset();
             }
 
+            if (ctx.getData() == null) {
+                return contains(ctx.getLiteralBytes(index), 0, ctx.getLiteralsLength()[index]);
+            }
+
             return contains(ctx.getData(), ctx.getLiteralsBegin()[index], ctx.getLiteralsLength()[index]);
         }
     }
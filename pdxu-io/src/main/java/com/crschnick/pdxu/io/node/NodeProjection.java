@@ -0,0 +1,109 @@
+package com.crschnick.pdxu.io.node;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of key paths like {@code countries/REB/treasury} that describes which parts of a node tree are needed.
+ * A path always includes the complete subtree of the node it points to.
+ * The wildcard {@code *} matches every key and also array elements without a key.
+ */
+public final class NodeProjection {
+
+    public static final String WILDCARD = "*";
+
+    public static NodeProjection of(String... paths) {
+        var root = new NodeProjection();
+        for (var path : paths) {
+            root.add(List.of(path.split("/")), 0);
+        }
+        root.mergeWildcards();
+        return root;
+    }
+
+    /**
+     * Creates a projection from pointers.
+     * Since only names can be evaluated without the parsed node tree, all other pointer elements are treated like wildcards.
+     */
+    public static NodeProjection of(NodePointer... pointers) {
+        var root = new NodeProjection();
+        for (var pointer : pointers) {
+            root.add(pointer.getPath().stream()
+                    .map(e -> e instanceof NodePointer.NameElement n ? n.name() : WILDCARD)
+                    .toList(), 0);
+        }
+        root.mergeWildcards();
+        return root;
+    }
+
+    private final Map<String, NodeProjection> children = new HashMap<>();
+    private NodeProjection wildcard;
+    private boolean complete;
+
+    private NodeProjection() {
+    }
+
+    private void add(List<String> path, int index) {
+        if (index == path.size()) {
+            complete = true;
+            return;
+        }
+
+        var key = path.get(index);
+        NodeProjection child;
+        if (key.equals(WILDCARD)) {
+            if (wildcard == null) {
+                wildcard = new NodeProjection();
+            }
+            child = wildcard;
+        } else {
+            child = children.computeIfAbsent(key, k -> new NodeProjection());
+        }
+        child.add(path, index + 1);
+    }
+
+    private void addAll(NodeProjection other) {
+        if (other.complete) {
+            complete = true;
+        }
+        other.children.forEach((k, v) -> children.computeIfAbsent(k, key -> new NodeProjection()).addAll(v));
+        if (other.wildcard != null) {
+            if (wildcard == null) {
+                wildcard = new NodeProjection();
+            }
+            wildcard.addAll(other.wildcard);
+        }
+    }
+
+    private void mergeWildcards() {
+        // A named child also has to include everything that is matched by the wildcard
+        if (wildcard != null) {
+            children.values().forEach(c -> c.addAll(wildcard));
+            wildcard.mergeWildcards();
+        }
+        children.values().forEach(NodeProjection::mergeWildcards);
+    }
+
+    /**
+     * Returns the projection for the value of a key or null if the value is not needed at all.
+     * For array elements without a key, null is passed.
+     */
+    public NodeProjection getChild(String key) {
+        if (complete) {
+            return this;
+        }
+
+        if (key != null) {
+            var child = children.get(key);
+            if (child != null) {
+                return child;
+            }
+        }
+        return wildcard;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
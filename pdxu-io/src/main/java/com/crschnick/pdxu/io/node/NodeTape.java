@@ -0,0 +1,151 @@
+package com.crschnick.pdxu.io.node;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores a complete node tree in one flat int array, so that a parsed tree only consists of a few objects.
+ * Nodes are created as short-lived views over the tape when they are accessed.
+ * <p>
+ * An array at position {@code p} is stored as its size {@code n} followed by {@code n} entries of two words each:
+ * The key scalar or -1 and the value, which is either a scalar index or the bitwise complement of the child position.
+ * A tagged node is stored as the complement of its tag type ordinal, the first value scalar and the value count.
+ */
+public final class NodeTape {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final NodeContext context;
+    private final int[] words;
+    private final Map<Integer, KeyIndex> keyIndices = new ConcurrentHashMap<>();
+
+    private NodeTape(NodeContext context, int[] words) {
+        this.context = context;
+        this.words = words;
+    }
+
+    NodeContext getContext() {
+        return context;
+    }
+
+    int[] getWords() {
+        return words;
+    }
+
+    KeyIndex getKeyIndex(int position) {
+        return keyIndices.computeIfAbsent(position, p -> new KeyIndex(context, words, p + 1, 2, words[p]));
+    }
+
+    Node getNode(int value) {
+        if (value >= 0) {
+            return new ValueNode(context, value);
+        }
+
+        int position = ~value;
+        int header = words[position];
+        if (header >= 0) {
+            return new TapeArrayNode(this, position);
+        }
+
+        var type = TaggedNode.TagType.values()[~header];
+        var first = words[position + 1];
+        var values = new ValueNode[words[position + 2]];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new ValueNode(context, first + i);
+        }
+        return new TaggedNode(type, Arrays.asList(values));
+    }
+
+    public int getSize() {
+        return words.length;
+    }
+
+    public static class Builder {
+
+        private final NodeContext context;
+        private int[] words;
+        private int size;
+
+        // Positions and ends of the arrays that can still be written to, the innermost one last.
+        // Arrays are filled depth first, so a write to an outer array closes all inner ones.
+        private int[] openArrays = new int[64];
+        private int openArrayCount;
+
+        public Builder(NodeContext context, int expectedSize) {
+            this.context = context;
+            this.words = new int[Math.max(expectedSize, INITIAL_CAPACITY)];
+        }
+
+        private int reserve(int count) {
+            if (size + count > words.length) {
+                long capacity = Math.max((long) words.length * 2, (long) size + count);
+                words = Arrays.copyOf(words, Math.toIntExact(Math.min(capacity, Integer.MAX_VALUE - 8)));
+            }
+
+            int position = size;
+            size += count;
+            return position;
+        }
+
+        /**
+         * Reserves space for an array with up to {@code maxSize} entries and returns its position.
+         */
+        public int beginArray(int maxSize) {
+            int position = reserve(1 + 2 * maxSize);
+            if (2 * openArrayCount == openArrays.length) {
+                openArrays = Arrays.copyOf(openArrays, openArrays.length * 2);
+            }
+            openArrays[2 * openArrayCount] = position;
+            openArrays[2 * openArrayCount + 1] = size;
+            openArrayCount++;
+            return position;
+        }
+
+        public int putTaggedNode(TaggedNode.TagType type, int firstScalar, int count) {
+            int position = reserve(3);
+            words[position] = ~type.ordinal();
+            words[position + 1] = firstScalar;
+            words[position + 2] = count;
+            return position;
+        }
+
+        public void putScalarValue(int array, int scalarIndex) {
+            put(array, -1, scalarIndex);
+        }
+
+        public void putKeyAndScalarValue(int array, int keyIndex, int scalarIndex) {
+            put(array, keyIndex, scalarIndex);
+        }
+
+        public void putNodeValue(int array, int nodePosition) {
+            put(array, -1, ~nodePosition);
+        }
+
+        public void putKeyAndNodeValue(int array, int keyIndex, int nodePosition) {
+            put(array, keyIndex, ~nodePosition);
+        }
+
+        private void put(int array, int keyIndex, int value) {
+            while (openArrayCount > 0 && openArrays[2 * (openArrayCount - 1)] != array) {
+                openArrayCount--;
+            }
+            if (openArrayCount == 0) {
+                throw new IllegalStateException("Array at " + array + " can not be written to anymore");
+            }
+
+            int entry = array + 1 + 2 * words[array];
+            if (entry + 2 > openArrays[2 * openArrayCount - 1]) {
+                throw new IndexOutOfBoundsException("Array at " + array + " is already full");
+            }
+            words[array]++;
+            words[entry] = keyIndex;
+            words[entry + 1] = value;
+        }
+
+        public ArrayNode build(int rootPosition) {
+            var tape = new NodeTape(context, size < words.length ? Arrays.copyOf(words, size) : words);
+            return new TapeArrayNode(tape, rootPosition);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.crschnick.pdxu.io.node;
 
-import java.io.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -8,9 +11,10 @@ public interface NodeWriter {
 
     static byte[] writeToBytes(ArrayNode node, int maxLines, String indent) {
         var out = new ByteArrayOutputStream();
-        var writer = new NodeWriterImpl(out, StandardCharsets.UTF_8, maxLines, indent);
+        var writer = new NodeWriterImpl(out, StandardCharsets.UTF_8, maxLines, indent, false, 8192);
         try {
             node.writeTopLevel(writer);
+            writer.flush();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -22,16 +26,15 @@ public interface NodeWriter {
     }
 
     static void write(OutputStream out, Charset charset, ArrayNode node, String indent, int indentLevel) throws IOException {
-        var bout = new BufferedOutputStream(out, 1000000);
+        var writer = new NodeWriterImpl(out, charset, Integer.MAX_VALUE, indent, true);
         try {
-            var writer = new NodeWriterImpl(bout, charset, Integer.MAX_VALUE, indent);
             for (int i = 0; i < indentLevel; i++) {
                 writer.incrementIndent();
             }
             node.writeTopLevel(writer);
-            bout.flush();
+            writer.flush();
         } catch (IOException e) {
-            bout.close();
+            out.close();
             throw e;
         }
     }
@@ -46,7 +49,16 @@ public interface NodeWriter {
 
     void write(String s) throws IOException;
 
+    /**
+     * Returns whether ranges of the source data of a context can be written as is.
+     */
+    boolean canWriteSource(NodeContext ctx);
+
+    void writeSource(NodeContext ctx, int begin, int end) throws IOException;
+
     void space() throws IOException;
 
     void newLine() throws IOException;
+
+    void flush() throws IOException;
 }
@@ -3,23 +3,56 @@ package com.crschnick.pdxu.io.node;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
+/**
+ * Writes nodes into its own buffer, which is only passed to the output stream when it is full or flushed.
+ * Indentation and ASCII tokens like {@code =}, {@code {} and {@code }} are written without encoding them first.
+ * Literals are transcoded directly between ISO-8859-1 and UTF-8.
+ */
 public final class NodeWriterImpl implements NodeWriter {
 
-    private static final byte[] NEW_LINE = "\n".getBytes();
+    public static final int DEFAULT_BUFFER_SIZE = 1000000;
+
+    private static final byte NEW_LINE = '\n';
+    private static final byte SPACE = ' ';
+    private static final byte UNMAPPABLE = '?';
+
     private final OutputStream out;
     private final Charset charset;
+    private final boolean asciiCompatible;
     private final int maxLines;
     private final byte[] indentValue;
+    private final boolean copySource;
+    private final byte[] buffer;
+    private int position;
+    private byte[][] indents = new byte[8][];
     private int currentLines;
     private boolean hitMaxLines;
     private int indent;
 
     public NodeWriterImpl(OutputStream out, Charset charset, int maxLines, String indentValue) {
+        this(out, charset, maxLines, indentValue, false);
+    }
+
+    /**
+     * If source copying is enabled, unchanged arrays are written in the formatting of their source text.
+     * The output is therefore not necessarily the same as for a writer without source copying.
+     */
+    public NodeWriterImpl(OutputStream out, Charset charset, int maxLines, String indentValue, boolean copySource) {
+        this(out, charset, maxLines, indentValue, copySource, DEFAULT_BUFFER_SIZE);
+    }
+
+    public NodeWriterImpl(OutputStream out, Charset charset, int maxLines, String indentValue, boolean copySource, int bufferSize) {
         this.out = out;
         this.charset = charset;
+        this.asciiCompatible = charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.ISO_8859_1) ||
+                charset.equals(StandardCharsets.US_ASCII);
         this.maxLines = maxLines;
         this.indentValue = indentValue.getBytes();
+        this.copySource = copySource;
+        this.buffer = new byte[Math.max(bufferSize, 16)];
     }
 
     @Override
@@ -32,15 +65,28 @@ public final class NodeWriterImpl implements NodeWriter {
         indent--;
     }
 
+    private byte[] getIndent(int level) {
+        if (level >= indents.length) {
+            indents = Arrays.copyOf(indents, Math.max(level + 1, indents.length * 2));
+        }
+        if (indents[level] == null) {
+            var bytes = new byte[indentValue.length * level];
+            for (int i = 0; i < level; i++) {
+                System.arraycopy(indentValue, 0, bytes, i * indentValue.length, indentValue.length);
+            }
+            indents[level] = bytes;
+        }
+        return indents[level];
+    }
+
     @Override
     public void indent() throws IOException {
-        if (hitMaxLines) {
+        if (hitMaxLines || indent <= 0) {
             return;
         }
 
-        for (int i = 0; i < indent; i++) {
-            out.write(indentValue);
-        }
+        var bytes = getIndent(indent);
+        put(bytes, 0, bytes.length);
     }
 
     @Override
@@ -49,11 +95,88 @@ public final class NodeWriterImpl implements NodeWriter {
             return;
         }
 
-        if (ctx.getCharset().equals(charset)) {
-            out.write(ctx.getData(), ctx.getLiteralsBegin()[index], ctx.getLiteralsLength()[index]);
+        var ctxCharset = ctx.getCharset();
+        var data = ctx.getData();
+        if (ctxCharset.equals(charset)) {
+            if (data != null) {
+                put(data, ctx.getLiteralsBegin()[index], ctx.getLiteralsLength()[index]);
+            } else {
+                var bytes = ctx.getLiteralBytes(index);
+                put(bytes, 0, bytes.length);
+            }
+            return;
+        }
+
+        boolean latin1ToUtf8 = ctxCharset.equals(StandardCharsets.ISO_8859_1) && charset.equals(StandardCharsets.UTF_8);
+        boolean utf8ToLatin1 = ctxCharset.equals(StandardCharsets.UTF_8) && charset.equals(StandardCharsets.ISO_8859_1);
+        if (!latin1ToUtf8 && !utf8ToLatin1) {
+            var bytes = ctx.evaluateRaw(index).getBytes(charset);
+            put(bytes, 0, bytes.length);
+            return;
+        }
+
+        if (data == null) {
+            data = ctx.getLiteralBytes(index);
+        }
+        int begin = data == ctx.getData() ? ctx.getLiteralsBegin()[index] : 0;
+        int end = begin + ctx.getLiteralsLength()[index];
+        if (latin1ToUtf8) {
+            writeLatin1AsUtf8(data, begin, end);
         } else {
-            out.write(ctx.evaluateRaw(index).getBytes(charset));
+            writeUtf8AsLatin1(data, begin, end);
+        }
+    }
+
+    private void writeLatin1AsUtf8(byte[] data, int begin, int end) throws IOException {
+        for (int i = begin; i < end; i++) {
+            if (buffer.length - position < 2) {
+                flushBuffer();
+            }
+
+            byte b = data[i];
+            if (b >= 0) {
+                buffer[position++] = b;
+            } else {
+                buffer[position++] = (byte) (0xC0 | ((b & 0xFF) >> 6));
+                buffer[position++] = (byte) (0x80 | (b & 0x3F));
+            }
+        }
+    }
+
+    private void writeUtf8AsLatin1(byte[] data, int begin, int end) throws IOException {
+        int i = begin;
+        while (i < end) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+
+            int b = data[i] & 0xFF;
+            if (b < 0x80) {
+                buffer[position++] = (byte) b;
+                i++;
+                continue;
+            }
+
+            // Like String#getBytes, every character that is not contained in ISO-8859-1 is replaced
+            int length = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC2 ? 2 : 1;
+            if (length == 1 || i + length > end || !isContinuation(data, i + 1, i + length)) {
+                buffer[position++] = UNMAPPABLE;
+                i++;
+                continue;
+            }
+
+            buffer[position++] = length == 2 && b <= 0xC3 ? (byte) (((b & 0x1F) << 6) | (data[i + 1] & 0x3F)) : UNMAPPABLE;
+            i += length;
+        }
+    }
+
+    private static boolean isContinuation(byte[] data, int begin, int end) {
+        for (int i = begin; i < end; i++) {
+            if ((data[i] & 0xC0) != 0x80) {
+                return false;
+            }
         }
+        return true;
     }
 
     @Override
@@ -62,7 +185,46 @@ public final class NodeWriterImpl implements NodeWriter {
             return;
         }
 
-        out.write(s.getBytes(charset));
+        if (asciiCompatible && s.length() <= buffer.length && isAscii(s)) {
+            if (buffer.length - position < s.length()) {
+                flushBuffer();
+            }
+            for (int i = 0; i < s.length(); i++) {
+                buffer[position++] = (byte) s.charAt(i);
+            }
+            return;
+        }
+
+        var bytes = s.getBytes(charset);
+        put(bytes, 0, bytes.length);
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean canWriteSource(NodeContext ctx) {
+        // Copied ranges can span multiple lines, which are not counted
+        return copySource && !hitMaxLines && maxLines == Integer.MAX_VALUE && ctx.isSource() && ctx.getCharset().equals(charset);
+    }
+
+    @Override
+    public void writeSource(NodeContext ctx, int begin, int end) throws IOException {
+        var data = ctx.getData();
+        if (data != null && end - begin <= buffer.length - position) {
+            System.arraycopy(data, begin, buffer, position, end - begin);
+            position += end - begin;
+            return;
+        }
+
+        flushBuffer();
+        ctx.writeData(out, begin, end);
     }
 
     @Override
@@ -71,7 +233,11 @@ public final class NodeWriterImpl implements NodeWriter {
             return;
         }
 
-        out.write(" ".getBytes(charset));
+        if (asciiCompatible) {
+            putByte(SPACE);
+        } else {
+            write(" ");
+        }
     }
 
     @Override
@@ -80,11 +246,47 @@ public final class NodeWriterImpl implements NodeWriter {
             return;
         }
 
-        out.write(NEW_LINE);
+        putByte(NEW_LINE);
 
         currentLines++;
         if (currentLines >= maxLines) {
             hitMaxLines = true;
         }
     }
+
+    /**
+     * Passes the buffered content to the output stream and flushes it.
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void putByte(byte b) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = b;
+    }
+
+    private void put(byte[] b, int offset, int length) throws IOException {
+        if (length > buffer.length - position) {
+            flushBuffer();
+            if (length > buffer.length) {
+                out.write(b, offset, length);
+                return;
+            }
+        }
+
+        System.arraycopy(b, offset, buffer, position, length);
+        position += length;
+    }
 }
@@ -11,6 +11,8 @@ public final class SimpleArrayNode extends ArrayNode {
     private final int[] keyScalars;
     private final int[] valueScalars;
     private final List<Node> values;
+    private int keyLookups;
+    private KeyIndex keyIndex;
 
     SimpleArrayNode(NodeContext context, int[] keyScalars, int[] valueScalars, List<Node> values) {
         this.context = Objects.requireNonNull(context);
@@ -30,7 +32,7 @@ public final class SimpleArrayNode extends ArrayNode {
             evaluateAllValueNodes();
             for (int i = 0; i < values.size(); i++) {
                 if (hasKeyAtIndex(i)) {
-                    sb.append(context.evaluate(keyScalars[i]));
+                    sb.append(context.evaluateKey(keyScalars[i]));
                     sb.append("=");
                 }
                 sb.append(values.get(i).toString());
@@ -153,7 +155,32 @@ public final class SimpleArrayNode extends ArrayNode {
         }, includeNullKeys);
     }
 
+    @Override
+    public void write(NodeWriter writer) throws IOException {
+        if (writer.canWriteSource(context) && isUnmodifiedSource()) {
+            int begin = getOpeningBrace();
+            int end = getClosingBraceEnd();
+            if (begin != -1 && end != -1) {
+                writer.writeSource(context, begin, end);
+                return;
+            }
+        }
+
+        super.write(writer);
+    }
+
     protected void writeInternal(NodeWriter writer) throws IOException {
+        if (writer.canWriteSource(context) && isUnmodifiedSource()) {
+            int begin = getEntryBegin(0);
+            int end = getEntryEnd(values.size() - 1);
+            if (begin != -1 && end != -1) {
+                writer.indent();
+                writer.writeSource(context, begin, end);
+                writer.newLine();
+                return;
+            }
+        }
+
         for (int i = 0; i < values.size(); i++) {
             writer.indent();
             if (hasKeyAtIndex(i)) {
@@ -170,6 +197,126 @@ public final class SimpleArrayNode extends ArrayNode {
         }
     }
 
+    /**
+     * Checks whether this array still consists of the nodes parsed from the source data, which can then be copied as is.
+     * Since literals are numbered in source order, all literals of this array lie between its first and last literal.
+     */
+    private boolean isUnmodifiedSource() {
+        if (values.isEmpty() || valueScalars == null) {
+            return false;
+        }
+
+        int first = hasKeyAtIndex(0) ? keyScalars[0] : getValueLiteral(0, true);
+        int last = getValueLiteral(values.size() - 1, false);
+        return first != -1 && last != -1 && !context.isModified(first, last);
+    }
+
+    private int getValueLiteral(int index, boolean first) {
+        if (valueScalars[index] != -1) {
+            return valueScalars[index];
+        }
+
+        var v = values.get(index);
+        if (v instanceof SimpleArrayNode a) {
+            if (a.context != context || a.values.isEmpty() || a.valueScalars == null) {
+                return -1;
+            }
+            return first ? (a.hasKeyAtIndex(0) ? a.keyScalars[0] : a.getValueLiteral(0, true)) :
+                    a.getValueLiteral(a.values.size() - 1, false);
+        }
+        if (v instanceof TaggedNode t) {
+            int tag = getTagLiteral(t);
+            return tag == -1 ? -1 : (first ? tag : tag + t.getValues().size());
+        }
+        return -1;
+    }
+
+    // Returns the literal of the tag if the values of a tagged node are still the literals that follow it
+    private int getTagLiteral(TaggedNode t) {
+        var tagValues = t.getValues();
+        if (tagValues.isEmpty() || tagValues.get(0).getContext() != context) {
+            return -1;
+        }
+
+        int tag = tagValues.get(0).getScalarIndex() - 1;
+        for (int i = 0; i < tagValues.size(); i++) {
+            if (tagValues.get(i).getContext() != context || tagValues.get(i).getScalarIndex() != tag + 1 + i) {
+                return -1;
+            }
+        }
+        return tag >= 0 && context.literalEquals(tag, t.getType().getBytes()) ? tag : -1;
+    }
+
+    private int getLiteralEnd(int literal) {
+        return context.getLiteralsBegin()[literal] + context.getLiteralsLength()[literal];
+    }
+
+    private int getEntryBegin(int index) {
+        if (hasKeyAtIndex(index)) {
+            return context.getLiteralsBegin()[keyScalars[index]];
+        }
+
+        int literal = getValueLiteral(index, true);
+        if (literal == -1) {
+            return -1;
+        }
+        return values.get(index) instanceof SimpleArrayNode a ? a.getOpeningBrace() : context.getLiteralsBegin()[literal];
+    }
+
+    private int getEntryEnd(int index) {
+        if (valueScalars[index] != -1) {
+            return getLiteralEnd(valueScalars[index]);
+        }
+
+        var v = values.get(index);
+        if (v instanceof SimpleArrayNode a) {
+            return a.context == context && a.valueScalars != null && !a.values.isEmpty() ? a.getClosingBraceEnd() : -1;
+        }
+        int last = getValueLiteral(index, false);
+        return last != -1 ? skipToClosingBrace(getLiteralEnd(last)) : -1;
+    }
+
+    private int getOpeningBrace() {
+        int i = getEntryBegin(0);
+        if (i == -1) {
+            return -1;
+        }
+
+        for (i--; i >= 0; i--) {
+            byte b = context.getByte(i);
+            if (b == '{') {
+                return i;
+            }
+            if (!isWhitespace(b)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private int getClosingBraceEnd() {
+        int end = getEntryEnd(values.size() - 1);
+        return end != -1 ? skipToClosingBrace(end) : -1;
+    }
+
+    private int skipToClosingBrace(int offset) {
+        int length = context.getDataLength();
+        for (int i = offset; i < length; i++) {
+            byte b = context.getByte(i);
+            if (b == '}') {
+                return i + 1;
+            }
+            if (!isWhitespace(b)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
     @Override
     public boolean forEach(BiPredicate<String, Node> c, boolean includeNullKeys) {
         evaluateAllValueNodes();
@@ -183,7 +330,7 @@ public final class SimpleArrayNode extends ArrayNode {
                     key = null;
                 }
             } else {
-                key = context.evaluate(keyScalars[i]);
+                key = context.evaluateKey(keyScalars[i]);
             }
 
             if (!c.test(key, values.get(i))) {
@@ -224,7 +371,7 @@ public final class SimpleArrayNode extends ArrayNode {
             return null;
         }
 
-        return context.evaluate(keyScalars[index]);
+        return context.evaluateKey(keyScalars[index]);
     }
 
     private boolean hasKeyAtIndex(int index) {
@@ -240,18 +387,29 @@ public final class SimpleArrayNode extends ArrayNode {
             return false;
         }
 
-        int keyScalarIndex = keyScalars[index];
-        if (context.getLiteralsLength()[keyScalarIndex] != b.length) {
-            return false;
+        return context.literalEquals(keyScalars[index], b);
+    }
+
+    private KeyIndex getKeyIndex() {
+        if (keyIndex == null && values.size() >= KeyIndex.MIN_SIZE &&
+                (++keyLookups > KeyIndex.MIN_LOOKUPS || values.size() > KeyIndex.LARGE_SIZE)) {
+            keyIndex = new KeyIndex(context, keyScalars, 0, 1, values.size());
         }
+        return keyIndex;
+    }
 
-        int start = context.getLiteralsBegin()[keyScalarIndex];
-        for (int i = 0; i < context.getLiteralsLength()[keyScalarIndex]; i++) {
-            if (context.getData()[start + i] != b[i]) {
-                return false;
+    private int indexOfKey(byte[] b) {
+        var index = getKeyIndex();
+        if (index != null) {
+            return index.indexOf(context, keyScalars, 0, 1, b);
+        }
+
+        for (int i = 0; i < values.size(); i++) {
+            if (isKeyAt(i, b)) {
+                return i;
             }
         }
-        return true;
+        return -1;
     }
 
     private Node getNodeForKeyInternal(String key) {
@@ -260,16 +418,14 @@ public final class SimpleArrayNode extends ArrayNode {
             return null;
         }
 
-        var b = key.getBytes(context.getCharset());
-        for (int i = 0; i < values.size(); i++) {
-            if (isKeyAt(i, b)) {
-                // Initialize value node if we haven't done that already
-                evaluateNodeAt(i);
-                return values.get(i);
-            }
+        var i = indexOfKey(key.getBytes(context.getCharset()));
+        if (i == -1) {
+            return null;
         }
 
-        return null;
+        // Initialize value node if we haven't done that already
+        evaluateNodeAt(i);
+        return values.get(i);
     }
 
     @Override
@@ -294,8 +450,21 @@ public final class SimpleArrayNode extends ArrayNode {
 
     @Override
     public List<Node> getNodesForKey(String key) {
-        var b = key.getBytes(context.getCharset());
         List<Node> found = new ArrayList<>();
+        if (keyScalars == null) {
+            return found;
+        }
+
+        var b = key.getBytes(context.getCharset());
+        var index = getKeyIndex();
+        if (index != null) {
+            for (int i = index.indexOf(context, keyScalars, 0, 1, b); i != -1; i = index.next[i]) {
+                evaluateNodeAt(i);
+                found.add(values.get(i));
+            }
+            return found;
+        }
+
         for (int i = 0; i < values.size(); i++) {
             if (isKeyAt(i, b)) {
                 evaluateNodeAt(i);
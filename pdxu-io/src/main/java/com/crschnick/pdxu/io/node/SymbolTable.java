@@ -0,0 +1,84 @@
+package com.crschnick.pdxu.io.node;
+
+import java.util.Arrays;
+
+/**
+ * Maps the bytes of keys to interned strings, so that the few thousand distinct keys of a savegame
+ * are not created again as a new string every time they are evaluated.
+ * Every symbol gets an id, which is stored in an open addressing table together with the key hash.
+ */
+final class SymbolTable {
+
+    private static final int MAX_SYMBOLS = 1 << 16;
+    private static final int MAX_LENGTH = 64;
+
+    private int[] slots;
+    private int[] hashes;
+    private int[] literals;
+    private String[] symbols;
+    private int size;
+
+    SymbolTable() {
+        this.slots = new int[256];
+        this.hashes = new int[128];
+        this.literals = new int[128];
+        this.symbols = new String[128];
+    }
+
+    static boolean isInternable(NodeContext context, int literalIndex) {
+        int length = context.getLiteralsLength()[literalIndex];
+        if (length == 0 || length > MAX_LENGTH) {
+            return false;
+        }
+
+        // Keys like ids and dates are mostly unique, so interning them is a waste of memory
+        byte first = context.getByte(context.getLiteralsBegin()[literalIndex]);
+        return first != '-' && (first < '0' || first > '9');
+    }
+
+    String intern(NodeContext context, int literalIndex) {
+        int hash = context.literalHashCode(literalIndex);
+        int mask = slots.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && context.literalEquals(literals[id], literalIndex)) {
+                return symbols[id];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        var symbol = context.evaluate(literalIndex);
+        if (size == MAX_SYMBOLS) {
+            return symbol;
+        }
+
+        if (size == symbols.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+            literals = Arrays.copyOf(literals, size * 2);
+            symbols = Arrays.copyOf(symbols, size * 2);
+        }
+        hashes[size] = hash;
+        literals[size] = literalIndex;
+        symbols[size] = symbol;
+        slots[slot] = ++size;
+
+        // Keep the load factor at most 0.5
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return symbol;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = (hashes[id] ^ (hashes[id] >>> 16)) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+}
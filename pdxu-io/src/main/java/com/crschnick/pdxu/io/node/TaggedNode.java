@@ -34,13 +34,12 @@ public final class TaggedNode extends Node {
                 return null;
             }
 
-            if (ctx.getData()[begin] != 'r' && ctx.getData()[begin] != 'h') {
+            if (ctx.getByte(begin) != 'r' && ctx.getByte(begin) != 'h') {
                 return null;
             }
 
-            var end = begin + length;
             for (var t : COLORS) {
-                if (Arrays.equals(t.getBytes(), 0, t.id.length(), ctx.getData(), begin, end)) {
+                if (ctx.literalEquals(index, t.getBytes())) {
                     return t;
                 }
             }
@@ -49,13 +48,12 @@ public final class TaggedNode extends Node {
                 return null;
             }
 
-            if (ctx.getData()[begin] != 'r' && ctx.getData()[begin] != 'h' && ctx.getData()[begin] != 'L') {
+            if (ctx.getByte(begin) != 'r' && ctx.getByte(begin) != 'h' && ctx.getByte(begin) != 'L') {
                 return null;
             }
 
-            var end = begin + length;
             for (var t : ALL) {
-                if (Arrays.equals(t.getBytes(), 0, t.id.length(), ctx.getData(), begin, end)) {
+                if (ctx.literalEquals(index, t.getBytes())) {
                     return t;
                 }
             }
@@ -64,6 +62,7 @@ public final class TaggedNode extends Node {
     }
 
     public void set(TaggedNode other) {
+        values.forEach(ValueNode::markModified);
         this.type = other.getType();
         this.values = Collections.unmodifiableList(other.getValues());
     }
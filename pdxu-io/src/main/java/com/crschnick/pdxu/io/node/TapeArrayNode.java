@@ -0,0 +1,280 @@
+package com.crschnick.pdxu.io.node;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * A view of an array that is stored in a {@link NodeTape}.
+ * All child nodes are created again on every access, so changes made to them are not stored in the tape.
+ */
+public final class TapeArrayNode extends ArrayNode {
+
+    private final NodeTape tape;
+    private final int position;
+
+    TapeArrayNode(NodeTape tape, int position) {
+        this.tape = tape;
+        this.position = position;
+    }
+
+    private int keyAt(int index) {
+        return tape.getWords()[position + 1 + 2 * index];
+    }
+
+    private int valueAt(int index) {
+        return tape.getWords()[position + 2 + 2 * index];
+    }
+
+    private Node nodeAt(int index) {
+        return tape.getNode(valueAt(index));
+    }
+
+    private boolean isKeyAt(int index, byte[] b) {
+        var key = keyAt(index);
+        return key != -1 && tape.getContext().literalEquals(key, b);
+    }
+
+    private int indexOfKey(byte[] b) {
+        if (size() > KeyIndex.LARGE_SIZE) {
+            return tape.getKeyIndex(position).indexOf(tape.getContext(), tape.getWords(), position + 1, 2, b);
+        }
+
+        for (int i = 0; i < size(); i++) {
+            if (isKeyAt(i, b)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        if (size() == 0 || size() > 10) {
+            return "TapeArrayNode(" + size() + ")";
+        }
+
+        StringBuilder sb = new StringBuilder("TapeArrayNode(");
+        for (int i = 0; i < size(); i++) {
+            if (keyAt(i) != -1) {
+                sb.append(tape.getContext().evaluateKey(keyAt(i)));
+                sb.append("=");
+            }
+            sb.append(nodeAt(i).toString());
+            sb.append(", ");
+        }
+        sb.delete(sb.length() - 2, sb.length());
+        sb.append(")");
+        return sb.toString();
+    }
+
+    @Override
+    public int size() {
+        return tape.getWords()[position];
+    }
+
+    @Override
+    public boolean isKeyAt(String key, int index) {
+        return isKeyAt(index, key.getBytes(tape.getContext().getCharset()));
+    }
+
+    @Override
+    public ArrayNode splice(int begin, int length) {
+        int[] ks = new int[length];
+        int[] vs = new int[length];
+        List<Node> values = new ArrayList<>(length);
+        boolean hasKeys = false;
+        for (int i = 0; i < length; i++) {
+            ks[i] = keyAt(begin + i);
+            hasKeys |= ks[i] != -1;
+
+            var v = valueAt(begin + i);
+            vs[i] = v >= 0 ? v : -1;
+            values.add(v >= 0 ? null : tape.getNode(v));
+        }
+        return new SimpleArrayNode(tape.getContext(), hasKeys ? ks : null, vs, values);
+    }
+
+    @Override
+    public List<Node> getNodeArray() {
+        var nodes = new Node[size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = nodeAt(i);
+        }
+        return Collections.unmodifiableList(Arrays.asList(nodes));
+    }
+
+    @Override
+    public boolean matches(NodeMatcher matcher) {
+        var context = tape.getContext();
+        for (int i = 0; i < size(); i++) {
+            if (keyAt(i) != -1 && matcher.matchesScalar(context, keyAt(i))) {
+                return true;
+            }
+
+            var v = valueAt(i);
+            if (v >= 0 ? matcher.matchesScalar(context, v) : tape.getNode(v).matches(matcher)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Descriptor describe() {
+        if (size() == 0) {
+            // Empty array type
+            return new Descriptor(null, KeyType.NONE);
+        }
+
+        ValueType type = null;
+        for (int i = 0; i < size(); i++) {
+            var node = nodeAt(i);
+            if (node.isArray()) {
+                type = null;
+                break;
+            }
+
+            var iT = node.describe().getValueType();
+            if (i == 0) {
+                type = iT;
+            } else if (!iT.equals(type)) {
+                type = null;
+                break;
+            }
+        }
+
+        int keyCount = 0;
+        for (int i = 0; i < size(); i++) {
+            if (keyAt(i) != -1) {
+                keyCount++;
+            }
+        }
+
+        if (keyCount == 0) {
+            return new Descriptor(type, KeyType.NONE);
+        }
+        if (keyCount == size()) {
+            return new Descriptor(type, KeyType.ALL);
+        }
+        return new Descriptor(type, KeyType.MIXED);
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Node> c, boolean includeNullKeys) {
+        forEach((k, v) -> {
+            c.accept(k, v);
+            return true;
+        }, includeNullKeys);
+    }
+
+    @Override
+    public boolean forEach(BiPredicate<String, Node> c, boolean includeNullKeys) {
+        for (int i = 0; i < size(); i++) {
+            var key = keyAt(i);
+            if (key == -1 && !includeNullKeys) {
+                continue;
+            }
+
+            if (!c.test(key != -1 ? tape.getContext().evaluateKey(key) : null, nodeAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void writeInternal(NodeWriter writer) throws IOException {
+        var context = tape.getContext();
+        for (int i = 0; i < size(); i++) {
+            writer.indent();
+            if (keyAt(i) != -1) {
+                writer.write(context, keyAt(i));
+                writer.write("=");
+            }
+
+            var v = valueAt(i);
+            if (v >= 0) {
+                writer.write(context, v);
+            } else {
+                tape.getNode(v).write(writer);
+            }
+            writer.newLine();
+        }
+    }
+
+    @Override
+    protected void writeFlatInternal(NodeWriter writer) throws IOException {
+        for (int i = 0; i < size(); i++) {
+            writer.space();
+            var v = valueAt(i);
+            if (v >= 0) {
+                writer.write(tape.getContext(), v);
+            } else {
+                tape.getNode(v).write(writer);
+            }
+        }
+    }
+
+    @Override
+    protected boolean isFlat() {
+        for (int i = 0; i < size(); i++) {
+            if (keyAt(i) != -1 || valueAt(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getKeyAt(int index) {
+        var key = keyAt(index);
+        return key != -1 ? tape.getContext().evaluateKey(key) : null;
+    }
+
+    @Override
+    public Optional<Node> getNodeForKeyIfExistent(String key) {
+        var i = indexOfKey(key.getBytes(tape.getContext().getCharset()));
+        return i != -1 ? Optional.of(nodeAt(i)) : Optional.empty();
+    }
+
+    @Override
+    public boolean hasKey(String key) {
+        return indexOfKey(key.getBytes(tape.getContext().getCharset())) != -1;
+    }
+
+    @Override
+    public Node getNodeForKey(String key) {
+        var i = indexOfKey(key.getBytes(tape.getContext().getCharset()));
+        if (i != -1) {
+            return nodeAt(i);
+        }
+
+        throw new IllegalArgumentException("Invalid key " + key);
+    }
+
+    @Override
+    public List<Node> getNodesForKey(String key) {
+        List<Node> found = new ArrayList<>();
+        var b = key.getBytes(tape.getContext().getCharset());
+        if (size() > KeyIndex.LARGE_SIZE) {
+            var index = tape.getKeyIndex(position);
+            for (int i = index.indexOf(tape.getContext(), tape.getWords(), position + 1, 2, b); i != -1; i = index.next[i]) {
+                found.add(nodeAt(i));
+            }
+            return found;
+        }
+
+        for (int i = 0; i < size(); i++) {
+            if (isKeyAt(i, b)) {
+                found.add(nodeAt(i));
+            }
+        }
+        return found;
+    }
+}
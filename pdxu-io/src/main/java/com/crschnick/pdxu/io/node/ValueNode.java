@@ -2,13 +2,19 @@ package com.crschnick.pdxu.io.node;
 
 import java.io.IOException;
 import java.util.Objects;
-import java.util.regex.Pattern;
 
 public final class ValueNode extends Node {
 
     private static final byte DOUBLE_QUOTE_CHAR = 34;
-    private static final Pattern LONG = Pattern.compile("[+-]?[0-9]+");
-    private static final Pattern DOUBLE = Pattern.compile("[+-]?([0-9]+)\\.([0-9]+)");
+
+    // Returned if a value is not a plain decimal integer, which can never happen for up to 18 digits
+    private static final long NO_INTEGER = Long.MIN_VALUE;
+
+    // Every long below this and every power of ten up to 10^22 is exactly representable as a double
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
 
     private NodeContext context;
     private int scalarIndex;
@@ -29,18 +35,31 @@ public final class ValueNode extends Node {
     }
 
     public void set(ValueNode newValue) {
+        markModified();
         this.context = newValue.context;
         this.scalarIndex = newValue.scalarIndex;
     }
 
+    void markModified() {
+        context.markModified(scalarIndex);
+    }
+
+    NodeContext getContext() {
+        return context;
+    }
+
+    int getScalarIndex() {
+        return scalarIndex;
+    }
+
     public boolean isQuoted() {
-        if (context.getData().length < 2) {
+        if (context.getDataLength() < 2) {
             return false;
         }
 
         var b = context.getLiteralsBegin()[scalarIndex];
-        return context.getData()[b] == DOUBLE_QUOTE_CHAR &&
-                context.getData()[b + context.getLiteralsLength()[scalarIndex] - 1] == DOUBLE_QUOTE_CHAR;
+        return context.getByte(b) == DOUBLE_QUOTE_CHAR &&
+                context.getByte(b + context.getLiteralsLength()[scalarIndex] - 1) == DOUBLE_QUOTE_CHAR;
     }
 
     @Override
@@ -58,21 +77,101 @@ public final class ValueNode extends Node {
         ValueType t;
         if (isQuoted()) {
             t = ValueType.TEXT;
+        } else if (contentEquals("yes") || contentEquals("no")) {
+            t = ValueType.BOOLEAN;
         } else {
-            var s = evaluateContent();
-            if (s.equals("yes") || s.equals("no")) {
-                t = ValueType.BOOLEAN;
-            } else if (DOUBLE.matcher(s).matches()) {
-                t = ValueType.FLOATING_POINT;
-            } else if (LONG.matcher(s).matches()) {
-                t = ValueType.INTEGER;
-            } else {
-                t = ValueType.UNQUOTED_STRING;
-            }
+            t = describeNumber();
         }
         return new Descriptor(t, KeyType.NONE);
     }
 
+    private ValueType describeNumber() {
+        int i = context.getLiteralsBegin()[scalarIndex];
+        int end = i + context.getLiteralsLength()[scalarIndex];
+        if (i < end && (context.getByte(i) == '+' || context.getByte(i) == '-')) {
+            i++;
+        }
+
+        int integerDigits = countDigits(i, end);
+        i += integerDigits;
+        if (integerDigits == 0) {
+            return ValueType.UNQUOTED_STRING;
+        }
+        if (i == end) {
+            return ValueType.INTEGER;
+        }
+
+        if (context.getByte(i) == '.') {
+            int fractionDigits = countDigits(i + 1, end);
+            if (fractionDigits > 0 && i + 1 + fractionDigits == end) {
+                return ValueType.FLOATING_POINT;
+            }
+        }
+        return ValueType.UNQUOTED_STRING;
+    }
+
+    private int countDigits(int begin, int end) {
+        int i = begin;
+        while (i < end && isDigit(context.getByte(i))) {
+            i++;
+        }
+        return i - begin;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private int getContentBegin() {
+        return context.getLiteralsBegin()[scalarIndex] + (isQuoted() ? 1 : 0);
+    }
+
+    private int getContentEnd() {
+        return context.getLiteralsBegin()[scalarIndex] + context.getLiteralsLength()[scalarIndex] - (isQuoted() ? 1 : 0);
+    }
+
+    private boolean contentEquals(String ascii) {
+        int begin = getContentBegin();
+        if (getContentEnd() - begin != ascii.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < ascii.length(); i++) {
+            if (context.getByte(begin + i) != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the content as a plain decimal integer with an optional sign directly from the input.
+     * Returns {@link #NO_INTEGER} for everything else, which is then handled by the standard parse methods.
+     */
+    private long parseInteger(int maxDigits) {
+        int i = getContentBegin();
+        int end = getContentEnd();
+        boolean negative = false;
+        if (i < end && (context.getByte(i) == '+' || context.getByte(i) == '-')) {
+            negative = context.getByte(i) == '-';
+            i++;
+        }
+
+        if (i >= end || end - i > maxDigits) {
+            return NO_INTEGER;
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            var b = context.getByte(i);
+            if (!isDigit(b)) {
+                return NO_INTEGER;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
     @Override
     public void write(NodeWriter writer) throws IOException {
         writer.write(context, scalarIndex);
@@ -80,7 +179,7 @@ public final class ValueNode extends Node {
 
     @Override
     public boolean getBoolean() {
-        return "yes".equals(evaluateContent());
+        return contentEquals("yes");
     }
 
     private String evaluateContent() {
@@ -100,17 +199,63 @@ public final class ValueNode extends Node {
 
     @Override
     public int getInteger() {
+        long value = parseInteger(9);
+        if (value != NO_INTEGER) {
+            return (int) value;
+        }
+
         return Integer.parseInt(evaluateContent());
     }
 
     @Override
     public long getLong() {
+        long value = parseInteger(18);
+        if (value != NO_INTEGER) {
+            return value;
+        }
+
         return Long.parseLong(evaluateContent());
     }
 
     @Override
     public double getDouble() {
-        return Double.parseDouble(evaluateContent());
+        int i = getContentBegin();
+        int end = getContentEnd();
+        boolean negative = false;
+        if (i < end && (context.getByte(i) == '+' || context.getByte(i) == '-')) {
+            negative = context.getByte(i) == '-';
+            i++;
+        }
+
+        int integerDigits = countDigits(i, end);
+        int fractionDigits = 0;
+        if (i + integerDigits < end && context.getByte(i + integerDigits) == '.') {
+            fractionDigits = countDigits(i + integerDigits + 1, end);
+            if (fractionDigits == 0) {
+                return Double.parseDouble(evaluateContent());
+            }
+        }
+
+        // Only use the fast path if the result is guaranteed to be exactly the same as the one of Double.parseDouble
+        int length = integerDigits + (fractionDigits > 0 ? fractionDigits + 1 : 0);
+        if (integerDigits == 0 || i + length != end || integerDigits + fractionDigits > 18 ||
+                fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(evaluateContent());
+        }
+
+        long mantissa = 0;
+        for (; i < end; i++) {
+            var b = context.getByte(i);
+            if (b != '.') {
+                mantissa = mantissa * 10 + (b - '0');
+            }
+        }
+        if (mantissa >= MAX_EXACT_MANTISSA) {
+            return Double.parseDouble(evaluateContent());
+        }
+
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
     }
 
     @Override
@@ -0,0 +1,47 @@
+package com.crschnick.pdxu.io.parser;
+
+/**
+ * The game specific details of the binary format, i.e. how numbers and dates are encoded.
+ */
+public enum BinaryFormatFlavor {
+
+    EU4(false, 32768, false),
+
+    CK3(true, 100000, false),
+
+    HOI4(false, 32768, true);
+
+    private final boolean ieeeFloats;
+    private final long doubleDivisor;
+    private final boolean hasHours;
+
+    BinaryFormatFlavor(boolean ieeeFloats, long doubleDivisor, boolean hasHours) {
+        this.ieeeFloats = ieeeFloats;
+        this.doubleDivisor = doubleDivisor;
+        this.hasHours = hasHours;
+    }
+
+    /**
+     * Returns the value of a 32 bit float scaled by 1000, which is the precision used by the text format.
+     */
+    long getFloatThousandths(int raw) {
+        if (ieeeFloats) {
+            return Math.round(Float.intBitsToFloat(raw) * 1000.0);
+        }
+        return raw;
+    }
+
+    /**
+     * Returns the value of a 64 bit float scaled by 100000, which is the precision used by the text format.
+     */
+    long getDoubleHundredThousandths(long raw) {
+        if (doubleDivisor == 100000) {
+            return raw;
+        }
+        return Math.round(raw * 100000.0 / doubleDivisor);
+    }
+
+    boolean hasHours() {
+        return hasHours;
+    }
+}
@@ -0,0 +1,360 @@
+package com.crschnick.pdxu.io.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Decodes the binary format used by ironman savegames into the same tokens as the {@link TextFormatTokenizer}.
+ * The binary format consists of little endian 16 bit token ids, which are either control tokens,
+ * typed values that are followed by their data or key names that are looked up in a {@link BinaryTokenDictionary}.
+ * The text of every scalar is written into a separate data array, which the scalar offsets refer to.
+ */
+final class BinaryFormatTokenizer {
+
+    private static final int EQUALS = 0x0001;
+    private static final int OPEN = 0x0003;
+    private static final int CLOSE = 0x0004;
+    private static final int I32 = 0x000c;
+    private static final int F32 = 0x000d;
+    private static final int BOOL = 0x000e;
+    private static final int QUOTED = 0x000f;
+    private static final int U32 = 0x0014;
+    private static final int UNQUOTED = 0x0017;
+    private static final int F64 = 0x0167;
+    private static final int U64 = 0x029c;
+    private static final int I64 = 0x0317;
+
+    // Dates are stored as hours since the year -5000, so every smaller value is a normal integer
+    private static final int MIN_DATE = 43_800_000;
+    private static final int[] DAYS_PER_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private static final byte[] YES = "yes".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NO = "no".getBytes(StandardCharsets.UTF_8);
+
+    private final ByteBuffer input;
+    private final int end;
+    private final BinaryFormatFlavor flavor;
+    private final BinaryTokenDictionary dictionary;
+    private final PagedByteArray tokenTypes;
+    private final PagedIntArray scalarsStart;
+    private final PagedShortArray scalarsLength;
+    private final PagedIntArray arraySizes;
+    private int[] arraySizeStack;
+    private int arraySizeStackSize;
+    private byte[] data;
+    private int dataSize;
+    private int scalarStart;
+    private int i;
+
+    BinaryFormatTokenizer(byte[] bytes, int start, BinaryFormatFlavor flavor, BinaryTokenDictionary dictionary) {
+        this.input = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        this.end = bytes.length;
+        this.flavor = flavor;
+        this.dictionary = dictionary;
+
+        // Every token is at least 2 bytes long
+        int length = end - start;
+        this.tokenTypes = new PagedByteArray(length / 2 + 2, PagePool.SHARED);
+        this.scalarsStart = new PagedIntArray(length / 6 + 1, PagePool.SHARED);
+        this.scalarsLength = new PagedShortArray(length / 6 + 1, PagePool.SHARED);
+        this.arraySizes = new PagedIntArray(length / 32 + 1, PagePool.SHARED);
+        this.arraySizeStack = new int[32];
+        this.data = new byte[Math.max(length * 2, 16)];
+        this.i = start;
+    }
+
+    private void pushArray(int arrayIndex) {
+        if (arraySizeStackSize == arraySizeStack.length) {
+            arraySizeStack = Arrays.copyOf(arraySizeStack, arraySizeStack.length * 2);
+        }
+        arraySizeStack[arraySizeStackSize++] = arrayIndex;
+    }
+
+    private int currentArray() {
+        return arraySizeStack[arraySizeStackSize - 1];
+    }
+
+    private void require(int count) throws ParseException {
+        if (i + count > end) {
+            throw new ParseException("Unexpected end of binary data", Math.max(end - 1, 0), input);
+        }
+    }
+
+    private int readLength() throws ParseException {
+        require(2);
+        int length = input.getShort(i) & 0xFFFF;
+        i += 2;
+        require(length);
+        return length;
+    }
+
+    public void tokenize() throws ParseException {
+        tokenTypes.add(TextFormatTokenizer.OPEN_GROUP);
+        arraySizes.add(0);
+        pushArray(0);
+
+        while (i + 2 <= end) {
+            int id = input.getShort(i) & 0xFFFF;
+            i += 2;
+            switch (id) {
+                case EQUALS -> {
+                    int current = currentArray();
+                    int size = arraySizes.get(current);
+                    if (size > 0) {
+                        arraySizes.set(current, size - 1);
+                    }
+                    tokenTypes.add(TextFormatTokenizer.EQUALS);
+                }
+                case OPEN -> {
+                    arraySizes.increment(currentArray());
+                    pushArray(arraySizes.size());
+                    arraySizes.add(0);
+                    tokenTypes.add(TextFormatTokenizer.OPEN_GROUP);
+                }
+                case CLOSE -> {
+                    // Additional close group tokens on the top level are ignored, like in the text format
+                    if (arraySizeStackSize > 1) {
+                        arraySizeStackSize--;
+                        tokenTypes.add(TextFormatTokenizer.CLOSE_GROUP);
+                    }
+                }
+                case I32 -> {
+                    require(4);
+                    int value = input.getInt(i);
+                    i += 4;
+                    beginScalar();
+                    if (!writeDate(value)) {
+                        writeLong(value);
+                    }
+                    finishScalar(TextFormatTokenizer.STRING_UNQUOTED);
+                }
+                case U32 -> {
+                    require(4);
+                    long value = input.getInt(i) & 0xFFFFFFFFL;
+                    i += 4;
+                    beginScalar();
+                    writeLong(value);
+                    finishScalar(TextFormatTokenizer.STRING_UNQUOTED);
+                }
+                case I64, U64 -> {
+                    require(8);
+                    long value = input.getLong(i);
+                    i += 8;
+                    beginScalar();
+                    if (id == U64 && value < 0) {
+                        writeAscii(Long.toUnsignedString(value));
+                    } else {
+                        writeLong(value);
+                    }
+                    finishScalar(TextFormatTokenizer.STRING_UNQUOTED);
+                }
+                case F32 -> {
+                    require(4);
+                    long value = flavor.getFloatThousandths(input.getInt(i));
+                    i += 4;
+                    beginScalar();
+                    writeDecimal(value, 3);
+                    finishScalar(TextFormatTokenizer.STRING_UNQUOTED);
+                }
+                case F64 -> {
+                    require(8);
+                    long value = flavor.getDoubleHundredThousandths(input.getLong(i));
+                    i += 8;
+                    beginScalar();
+                    writeDecimal(value, 5);
+                    finishScalar(TextFormatTokenizer.STRING_UNQUOTED);
+                }
+                case BOOL -> {
+                    require(1);
+                    boolean value = input.get(i) != 0;
+                    i += 1;
+                    beginScalar();
+                    write(value ? YES : NO);
+                    finishScalar(TextFormatTokenizer.STRING_UNQUOTED);
+                }
+                case QUOTED -> {
+                    int length = readLength();
+                    beginScalar();
+                    writeQuoted(i, length);
+                    i += length;
+                    finishScalar(TextFormatTokenizer.STRING_QUOTED);
+                }
+                case UNQUOTED -> {
+                    int length = readLength();
+                    beginScalar();
+                    ensureCapacity(length);
+                    input.get(i, data, dataSize, length);
+                    dataSize += length;
+                    i += length;
+                    finishScalar(TextFormatTokenizer.STRING_UNQUOTED);
+                }
+                default -> {
+                    var name = dictionary.getName(id);
+                    beginScalar();
+                    if (name != null) {
+                        write(name);
+                    } else {
+                        writeAscii(String.format("__unknown_0x%04x", id));
+                    }
+                    finishScalar(TextFormatTokenizer.STRING_UNQUOTED);
+                }
+            }
+        }
+
+        for (int a = 1; a < arraySizeStackSize; a++) {
+            tokenTypes.add(TextFormatTokenizer.CLOSE_GROUP);
+        }
+        tokenTypes.add(TextFormatTokenizer.CLOSE_GROUP);
+    }
+
+    private void beginScalar() {
+        scalarStart = dataSize;
+    }
+
+    private void finishScalar(byte type) throws ParseException {
+        int length = dataSize - scalarStart;
+        if (length > Short.MAX_VALUE) {
+            throw new ParseException("Encountered scalar with length " + length + ", which is too big", i, input);
+        }
+
+        tokenTypes.add(type);
+        scalarsStart.add(scalarStart);
+        scalarsLength.add((short) length);
+        arraySizes.increment(currentArray());
+    }
+
+    private void ensureCapacity(int count) {
+        if (dataSize + count > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataSize + count));
+        }
+    }
+
+    private void write(byte[] b) {
+        ensureCapacity(b.length);
+        System.arraycopy(b, 0, data, dataSize, b.length);
+        dataSize += b.length;
+    }
+
+    private void writeAscii(String s) {
+        ensureCapacity(s.length());
+        for (int c = 0; c < s.length(); c++) {
+            data[dataSize++] = (byte) s.charAt(c);
+        }
+    }
+
+    private void writeQuoted(int start, int length) {
+        // Reserve space for the quotes and for every character being escaped
+        ensureCapacity(2 * length + 2);
+        data[dataSize++] = '"';
+        for (int p = start; p < start + length; p++) {
+            byte b = input.get(p);
+            if (b == '"' || b == '\\') {
+                data[dataSize++] = '\\';
+            }
+            data[dataSize++] = b;
+        }
+        data[dataSize++] = '"';
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            ensureCapacity(1);
+            data[dataSize++] = '-';
+            value = -value;
+        }
+
+        ensureCapacity(20);
+        int digits = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            digits++;
+        }
+        for (int d = digits - 1; d >= 0; d--) {
+            data[dataSize + d] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        dataSize += digits;
+    }
+
+    private void writeDecimal(long scaled, int decimals) {
+        long divisor = 1;
+        for (int d = 0; d < decimals; d++) {
+            divisor *= 10;
+        }
+
+        if (scaled < 0) {
+            ensureCapacity(1);
+            data[dataSize++] = '-';
+        }
+        writeLong(Math.abs(scaled / divisor));
+
+        long fraction = Math.abs(scaled % divisor);
+        ensureCapacity(decimals + 1);
+        data[dataSize++] = '.';
+        for (int d = decimals - 1; d >= 0; d--) {
+            data[dataSize + d] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        dataSize += decimals;
+    }
+
+    private boolean writeDate(int value) {
+        if (value < MIN_DATE) {
+            return false;
+        }
+
+        int hours = value % 24;
+        if (hours != 0 && !flavor.hasHours()) {
+            return false;
+        }
+
+        int days = value / 24;
+        int year = days / 365 - 5000;
+        int dayOfYear = days % 365;
+        int month = 0;
+        while (dayOfYear >= DAYS_PER_MONTH[month]) {
+            dayOfYear -= DAYS_PER_MONTH[month];
+            month++;
+        }
+
+        writeLong(year);
+        writeAscii(".");
+        writeLong(month + 1);
+        writeAscii(".");
+        writeLong(dayOfYear + 1);
+        if (flavor.hasHours()) {
+            writeAscii(".");
+            writeLong(hours);
+        }
+        return true;
+    }
+
+    public byte[] getTokenTypes() {
+        return tokenTypes.toArray();
+    }
+
+    public int[] getArraySizes() {
+        return arraySizes.toArray();
+    }
+
+    public int[] getScalarsStart() {
+        return scalarsStart.toArray();
+    }
+
+    public short[] getScalarsLength() {
+        return scalarsLength.toArray();
+    }
+
+    public int getScalarCount() {
+        return scalarsStart.size();
+    }
+
+    public byte[] getData() {
+        return dataSize < data.length ? Arrays.copyOf(data, dataSize) : data;
+    }
+}
@@ -0,0 +1,59 @@
+package com.crschnick.pdxu.io.parser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Maps the 16 bit token ids of the binary format to the names of keys and values.
+ * The dictionary of a game is not included and has to be loaded from a file with one {@code <id> <name>} entry per line.
+ * Ids can be written in decimal or in hexadecimal with a {@code 0x} prefix and lines starting with {@code #} are ignored.
+ */
+public final class BinaryTokenDictionary {
+
+    private final byte[][] names;
+
+    private BinaryTokenDictionary(byte[][] names) {
+        this.names = names;
+    }
+
+    public static BinaryTokenDictionary of(Map<Integer, String> tokens) {
+        var names = new byte[1 << 16][];
+        tokens.forEach((id, name) -> names[id & 0xFFFF] = name.getBytes(StandardCharsets.UTF_8));
+        return new BinaryTokenDictionary(names);
+    }
+
+    public static BinaryTokenDictionary load(Path file) throws IOException {
+        var names = new byte[1 << 16][];
+        int lineNumber = 0;
+        for (var line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            var split = line.split("\\s+", 2);
+            if (split.length != 2) {
+                throw new IOException("Invalid token definition in line " + lineNumber + ": " + line);
+            }
+
+            try {
+                int id = split[0].startsWith("0x") ? Integer.parseInt(split[0].substring(2), 16) : Integer.parseInt(split[0]);
+                names[id & 0xFFFF] = split[1].getBytes(StandardCharsets.UTF_8);
+            } catch (NumberFormatException ex) {
+                throw new IOException("Invalid token id in line " + lineNumber + ": " + line, ex);
+            }
+        }
+        return new BinaryTokenDictionary(names);
+    }
+
+    /**
+     * Returns the name of a token or null if it is unknown.
+     */
+    byte[] getName(int id) {
+        return names[id];
+    }
+}
@@ -0,0 +1,37 @@
+package com.crschnick.pdxu.io.parser;
+
+import com.crschnick.pdxu.io.node.NodeContext;
+import com.crschnick.pdxu.io.node.TaggedNode;
+
+/**
+ * Receives the content of a text input as a stream of events instead of a node tree.
+ * The events of a key are directly followed by the events of its value.
+ * The whole input is reported as one array, like the root node returned by the parser.
+ * <p>
+ * Scalars are passed as an index into a context, which can for example be used to create a
+ * {@link com.crschnick.pdxu.io.node.ValueNode} or to compare the literal bytes.
+ * When reading from a stream, the context is only valid during the call.
+ */
+public interface NodeVisitor {
+
+    default void startArray() {
+    }
+
+    default void endArray() {
+    }
+
+    /**
+     * Called for a tagged node like {@code rgb { 1 2 3 }}. Its values are reported as scalars until {@link #endTagged()}.
+     */
+    default void startTagged(TaggedNode.TagType type) {
+    }
+
+    default void endTagged() {
+    }
+
+    default void key(NodeContext context, int scalarIndex) {
+    }
+
+    default void scalar(NodeContext context, int scalarIndex) {
+    }
+}
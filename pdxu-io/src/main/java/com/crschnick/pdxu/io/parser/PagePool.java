@@ -0,0 +1,94 @@
+package com.crschnick.pdxu.io.parser;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayDeque;
+
+/**
+ * A thread-safe pool of the pages that tokenizers write their output into.
+ * Once the output has been copied into exactly sized arrays, the pages are returned to the pool,
+ * so that parsing many inputs after each other does not allocate new pages for every input.
+ * <p>
+ * The pooled pages are only softly reachable and are therefore released by the garbage collector if memory runs low.
+ */
+final class PagePool {
+
+    static final PagePool SHARED = new PagePool(256L * 1024 * 1024);
+
+    private final long maxBytes;
+    private SoftReference<Pages> pages = new SoftReference<>(null);
+
+    PagePool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    private Pages getPages() {
+        var p = pages.get();
+        if (p == null) {
+            p = new Pages();
+            pages = new SoftReference<>(p);
+        }
+        return p;
+    }
+
+    synchronized byte[] takeBytePage(int size) {
+        var p = getPages();
+        var page = p.bytes.poll();
+        if (page == null) {
+            return new byte[size];
+        }
+        p.size -= page.length;
+        return page;
+    }
+
+    synchronized short[] takeShortPage(int size) {
+        var p = getPages();
+        var page = p.shorts.poll();
+        if (page == null) {
+            return new short[size];
+        }
+        p.size -= page.length * 2L;
+        return page;
+    }
+
+    synchronized int[] takeIntPage(int size) {
+        var p = getPages();
+        var page = p.ints.poll();
+        if (page == null) {
+            return new int[size];
+        }
+        p.size -= page.length * 4L;
+        return page;
+    }
+
+    synchronized void returnPage(byte[] page) {
+        var p = getPages();
+        if (p.size + page.length <= maxBytes) {
+            p.bytes.push(page);
+            p.size += page.length;
+        }
+    }
+
+    synchronized void returnPage(short[] page) {
+        var p = getPages();
+        if (p.size + page.length * 2L <= maxBytes) {
+            p.shorts.push(page);
+            p.size += page.length * 2L;
+        }
+    }
+
+    synchronized void returnPage(int[] page) {
+        var p = getPages();
+        if (p.size + page.length * 4L <= maxBytes) {
+            p.ints.push(page);
+            p.size += page.length * 4L;
+        }
+    }
+
+    private static final class Pages {
+
+        private final ArrayDeque<byte[]> bytes = new ArrayDeque<>();
+        private final ArrayDeque<short[]> shorts = new ArrayDeque<>();
+        private final ArrayDeque<int[]> ints = new ArrayDeque<>();
+        private long size;
+    }
+}
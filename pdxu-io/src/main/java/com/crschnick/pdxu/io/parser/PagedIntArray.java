@@ -0,0 +1,117 @@
+package com.crschnick.pdxu.io.parser;
+
+import java.util.Arrays;
+
+/**
+ * A growable int array that is split into fixed size pages, so that existing elements are never copied when growing.
+ * Only the first page starts smaller and is grown up to the page size to keep small inputs cheap.
+ * If a pool is used, full pages are taken from it and returned to it once they are not needed anymore.
+ */
+final class PagedIntArray {
+
+    private static final int PAGE_SHIFT = 14;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final PagePool pool;
+    private int[][] pages;
+    private int[] current;
+    private int position;
+    private int size;
+
+    PagedIntArray(int initialCapacity) {
+        this(initialCapacity, null);
+    }
+
+    PagedIntArray(int initialCapacity, PagePool pool) {
+        this.pool = pool;
+        this.pages = new int[8][];
+        this.current = pool != null && initialCapacity >= PAGE_SIZE ?
+                pool.takeIntPage(PAGE_SIZE) : new int[Math.max(1, Math.min(initialCapacity, PAGE_SIZE))];
+        this.pages[0] = current;
+    }
+
+    private void nextPage() {
+        if (current.length < PAGE_SIZE) {
+            current = Arrays.copyOf(current, Math.min(current.length * 2, PAGE_SIZE));
+            pages[0] = current;
+            return;
+        }
+
+        int page = size >>> PAGE_SHIFT;
+        if (page == pages.length) {
+            pages = Arrays.copyOf(pages, pages.length * 2);
+        }
+        current = pool != null ? pool.takeIntPage(PAGE_SIZE) : new int[PAGE_SIZE];
+        pages[page] = current;
+        position = 0;
+    }
+
+    void add(int value) {
+        if (position == current.length) {
+            nextPage();
+        }
+        current[position++] = value;
+        size++;
+    }
+
+    int get(int index) {
+        return pages[index >>> PAGE_SHIFT][index & PAGE_MASK];
+    }
+
+    void set(int index, int value) {
+        pages[index >>> PAGE_SHIFT][index & PAGE_MASK] = value;
+    }
+
+    void increment(int index) {
+        pages[index >>> PAGE_SHIFT][index & PAGE_MASK]++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void copyTo(int from, int[] dst, int dstOffset, int length) {
+        while (length > 0) {
+            int pageOffset = from & PAGE_MASK;
+            int count = Math.min(length, PAGE_SIZE - pageOffset);
+            System.arraycopy(pages[from >>> PAGE_SHIFT], pageOffset, dst, dstOffset, count);
+            from += count;
+            dstOffset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Returns an exactly sized copy and releases all pages while copying.
+     * This array can not be used anymore afterwards.
+     */
+    int[] toArray() {
+        var array = new int[size];
+        for (int page = 0, offset = 0; offset < size; page++, offset += PAGE_SIZE) {
+            System.arraycopy(pages[page], 0, array, offset, Math.min(PAGE_SIZE, size - offset));
+            releasePage(page);
+        }
+        pages = null;
+        current = null;
+        return array;
+    }
+
+    /**
+     * Returns all pages to the pool. This array can not be used anymore afterwards.
+     */
+    void release() {
+        for (int page = 0; page < pages.length; page++) {
+            releasePage(page);
+        }
+        pages = null;
+        current = null;
+    }
+
+    private void releasePage(int page) {
+        if (pool != null && pages[page] != null && pages[page].length == PAGE_SIZE) {
+            pool.returnPage(pages[page]);
+        }
+        pages[page] = null;
+    }
+}
@@ -0,0 +1,230 @@
+package com.crschnick.pdxu.io.parser;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/*
+The input is split into chunks directly after new lines, which are then tokenized independently.
+A chunk can only be tokenized correctly on its own if it does not start inside a quoted scalar.
+Since a chunk is guaranteed to start correctly if the previous chunk started correctly and did not end
+inside quotes, this can be verified afterwards for every chunk boundary.
+
+Every chunk except the first one starts in an outer array that was opened in a previous chunk.
+These outer arrays are tracked separately by the chunk tokenizers and then resolved when the results are stitched together.
+If the result of a chunk can not be determined without knowing the previous input,
+the complete input is tokenized sequentially instead.
+The result is therefore always equal to the one of the sequential tokenizer.
+ */
+public final class ParallelTextFormatTokenizer {
+
+    private static final int MIN_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private final int length;
+    private final int start;
+    private final boolean strict;
+    private final int parallelism;
+    private byte[] tokenTypes;
+    private int[] scalarsStart;
+    private short[] scalarsLength;
+    private int[] arraySizes;
+    private int scalarCount;
+
+    public ParallelTextFormatTokenizer(byte[] bytes, int start, boolean strict, int parallelism) {
+        this(bytes, null, bytes.length, start, strict, parallelism);
+    }
+
+    public ParallelTextFormatTokenizer(ByteBuffer buffer, int start, boolean strict, int parallelism) {
+        this(null, buffer, buffer.limit(), start, strict, parallelism);
+    }
+
+    ParallelTextFormatTokenizer(byte[] bytes, ByteBuffer buffer, int length, int start, boolean strict, int parallelism) {
+        this.bytes = bytes;
+        this.buffer = buffer;
+        this.length = length;
+        this.start = start;
+        this.strict = strict;
+        this.parallelism = parallelism;
+    }
+
+    private static int getGlobalArrayIndex(TextFormatTokenizer chunk, int localIndex, int arrayOffset) {
+        int outerBefore = 0;
+        for (int j = 0; j < chunk.getOuterArrayCount(); j++) {
+            if (chunk.getOuterArrays()[j] < localIndex) {
+                outerBefore++;
+            }
+        }
+        return arrayOffset + localIndex - outerBefore;
+    }
+
+    private int[] determineChunkBounds() {
+        int inputLength = length - start;
+        int chunkCount = Math.max(1, Math.min(parallelism, inputLength / MIN_CHUNK_SIZE));
+        var bounds = new int[chunkCount + 1];
+        bounds[0] = start;
+        int count = 1;
+        for (int k = 1; k < chunkCount; k++) {
+            // Make sure that a possible BOM is completely contained in the first chunk
+            int pos = Math.max(start + (int) ((long) k * inputLength / chunkCount), bounds[count - 1] + 3);
+            while (pos < length && (bytes != null ? bytes[pos] : buffer.get(pos)) != '\n') {
+                pos++;
+            }
+
+            // Split after the new line
+            if (pos + 1 < length) {
+                bounds[count++] = pos + 1;
+            }
+        }
+        bounds[count++] = length;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    public void tokenize() throws ParseException {
+        int[] bounds = determineChunkBounds();
+        if (bounds.length <= 2 || !tokenizeChunks(bounds)) {
+            tokenizeSequentially();
+        }
+    }
+
+    private void tokenizeSequentially() throws ParseException {
+        var tokenizer = new TextFormatTokenizer(bytes, buffer, start, length, strict, false);
+        tokenizer.tokenize();
+        this.tokenTypes = tokenizer.getTokenTypes();
+        this.scalarsStart = tokenizer.getScalarsStart();
+        this.scalarsLength = tokenizer.getScalarsLength();
+        this.arraySizes = tokenizer.getArraySizes();
+        this.scalarCount = tokenizer.getScalarCount();
+    }
+
+    private boolean tokenizeChunks(int[] bounds) {
+        int chunkCount = bounds.length - 1;
+        var chunks = new TextFormatTokenizer[chunkCount];
+        IntStream.range(0, chunkCount).parallel().forEach(c -> {
+            var chunk = new TextFormatTokenizer(bytes, buffer, bounds[c], bounds[c + 1], strict, c > 0);
+            try {
+                chunk.tokenizeChunk();
+                chunks[c] = chunk;
+            } catch (Exception ignored) {
+                // The error might be caused by a wrong assumption about the outer arrays.
+                // The sequential tokenizer will report the actual error if there is one
+            }
+        });
+
+        int[] tokenOffsets = new int[chunkCount];
+        int[] scalarOffsets = new int[chunkCount];
+        int[] arrayOffsets = new int[chunkCount];
+        int tokenCount = 0;
+        int scalarCount = 0;
+        int arrayCount = 0;
+
+        // Stack of global array indices that are still open
+        int[] stack = new int[32];
+        int stackSize = 0;
+
+        // Pairs of global array indices and size changes made by later chunks
+        int[] outerChanges = new int[32];
+        int outerChangesCount = 0;
+
+        for (int c = 0; c < chunkCount; c++) {
+            var chunk = chunks[c];
+            if (chunk == null || chunk.isAmbiguous() || (c < chunkCount - 1 && chunk.endsInQuotes())) {
+                return false;
+            }
+
+            if (c > 0) {
+                // The last outer array is still open at the end of the chunk
+                int closedOuter = chunk.getOuterArrayCount() - 1;
+
+                // The top level array can not be closed. The sequential tokenizer ignores these closing brackets
+                if (closedOuter >= stackSize) {
+                    return false;
+                }
+
+                for (int j = 0; j <= closedOuter; j++) {
+                    if (outerChangesCount + 2 > outerChanges.length) {
+                        outerChanges = Arrays.copyOf(outerChanges, outerChanges.length * 2);
+                    }
+                    outerChanges[outerChangesCount++] = stack[stackSize - 1 - j];
+                    outerChanges[outerChangesCount++] = chunk.getArraySize(chunk.getOuterArrays()[j]);
+                }
+                stackSize -= closedOuter;
+            }
+
+            // Push all arrays that were opened in this chunk, but not closed
+            for (int s = c > 0 ? 1 : 0; s < chunk.getArraySizeStackSize(); s++) {
+                if (stackSize == stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[stackSize++] = getGlobalArrayIndex(chunk, chunk.getArraySizeStack()[s], arrayCount);
+            }
+
+            tokenOffsets[c] = tokenCount;
+            scalarOffsets[c] = scalarCount;
+            arrayOffsets[c] = arrayCount;
+            tokenCount += chunk.getTokenCount();
+            scalarCount += chunk.getScalarCount();
+            arrayCount += chunk.getArrayCount() - chunk.getOuterArrayCount();
+        }
+
+        // Let the sequential tokenizer throw the exception
+        if (strict && stackSize > 1) {
+            return false;
+        }
+
+        this.tokenTypes = new byte[tokenCount + stackSize];
+        this.scalarsStart = new int[scalarCount];
+        this.scalarsLength = new short[scalarCount];
+        this.arraySizes = new int[arrayCount];
+        this.scalarCount = scalarCount;
+
+        IntStream.range(0, chunkCount).parallel().forEach(c -> {
+            var chunk = chunks[c];
+            chunk.copyTokenTypes(tokenTypes, tokenOffsets[c]);
+            chunk.copyScalars(scalarsStart, scalarsLength, scalarOffsets[c]);
+
+            // Copy all array sizes except the ones of the outer arrays
+            int from = 0;
+            int to = arrayOffsets[c];
+            for (int j = 0; j <= chunk.getOuterArrayCount(); j++) {
+                int outer = j < chunk.getOuterArrayCount() ? chunk.getOuterArrays()[j] : chunk.getArrayCount();
+                chunk.copyArraySizes(from, arraySizes, to, outer - from);
+                to += outer - from;
+                from = outer + 1;
+            }
+
+            // Release the pages of this chunk early
+            chunk.release();
+            chunks[c] = null;
+        });
+
+        for (int j = 0; j < outerChangesCount; j += 2) {
+            arraySizes[outerChanges[j]] += outerChanges[j + 1];
+        }
+
+        // Close all unclosed arrays and the top level array
+        Arrays.fill(tokenTypes, tokenCount, tokenTypes.length, TextFormatTokenizer.CLOSE_GROUP);
+        return true;
+    }
+
+    public byte[] getTokenTypes() {
+        return tokenTypes;
+    }
+
+    public int[] getArraySizes() {
+        return arraySizes;
+    }
+
+    public int[] getScalarsStart() {
+        return scalarsStart;
+    }
+
+    public short[] getScalarsLength() {
+        return scalarsLength;
+    }
+
+    public int getScalarCount() {
+        return scalarCount;
+    }
+}
@@ -1,9 +1,11 @@
 package com.crschnick.pdxu.io.parser;
 
+import java.nio.ByteBuffer;
+
 public class ParseException extends Exception {
 
-    private static int getUsedOffset(int offset, byte[] data) {
-        boolean isEndOfLine = data.length - 2 > offset && data[offset + 1] == '\n';
+    private static int getUsedOffset(int offset, ByteBuffer data) {
+        boolean isEndOfLine = data.limit() - 2 > offset && data.get(offset + 1) == '\n';
         if (isEndOfLine) {
             return offset + 2;
         } else {
@@ -11,44 +13,55 @@ public class ParseException extends Exception {
         }
     }
 
-    private static int getLineNumber(int offset, byte[] data) {
+    private static int getLineNumber(int offset, ByteBuffer data) {
         offset = getUsedOffset(offset, data);
 
         int line = 1;
         for (int i = 0; i < offset; i++) {
-            if (data[i] == '\n') {
+            if (data.get(i) == '\n') {
                 line++;
             }
         }
         return line;
     }
 
-    private static int getDataStart(int offset, byte[] data) {
-        offset = getUsedOffset(offset, data);
+    private static int getDataStart(int offset, ByteBuffer data) {
+        offset = Math.min(getUsedOffset(offset, data), data.limit() - 1);
 
         int i;
         for (i = offset; i >= Math.max(offset - 30, 0); i--) {
-            if (data[i] == '\n') {
+            if (data.get(i) == '\n') {
                 return i + 1;
             }
         }
         return i + 1;
     }
 
-    private static int getDataEnd(int offset, byte[] data) {
-        offset = getUsedOffset(offset, data);
+    private static int getDataEnd(int offset, ByteBuffer data) {
+        offset = Math.min(getUsedOffset(offset, data), data.limit() - 1);
 
         int i;
-        for (i = offset; i < Math.min(offset + 30, data.length); i++) {
-            if (data[i] == '\n') {
+        for (i = offset; i < Math.min(offset + 30, data.limit()); i++) {
+            if (data.get(i) == '\n') {
                 return i - 1;
             }
         }
         return i - 1;
     }
 
+    private static String getDataSnippet(int offset, ByteBuffer data) {
+        int start = getDataStart(offset, data);
+        var snippet = new byte[Math.max(getDataEnd(offset, data) - start + 1, 0)];
+        data.get(start, snippet);
+        return new String(snippet);
+    }
+
     public ParseException(String s, int offset, byte[] data) {
-        super("Parser failed at line " + getLineNumber(offset, data) + " / offset " + offset + ": " + s + "\n\n" + new String(data, getDataStart(offset, data), getDataEnd(offset, data)));
+        this(s, offset, ByteBuffer.wrap(data));
+    }
+
+    public ParseException(String s, int offset, ByteBuffer data) {
+        super("Parser failed at line " + getLineNumber(offset, data) + " / offset " + offset + ": " + s + "\n\n" + getDataSnippet(offset, data));
     }
 
     public ParseException(Throwable t) {
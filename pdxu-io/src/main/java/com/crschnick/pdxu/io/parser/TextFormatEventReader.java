@@ -0,0 +1,290 @@
+package com.crschnick.pdxu.io.parser;
+
+import com.crschnick.pdxu.io.node.NodeContext;
+import com.crschnick.pdxu.io.node.TaggedNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/*
+Converts a stream of tokens into visitor events, following the same rules as the parser.
+Since the role of a scalar depends on the token after it, the last scalar is kept as pending
+until the next token is known, which also allows the tokens to be passed in separate chunks.
+Like in lazy parsing, the content of discarded nodes is not validated.
+
+When reading from a stream, the input is split directly after new lines into chunks,
+which are tokenized as a continuation of the previous chunk like in the parallel tokenizer.
+A chunk that ends inside a quoted scalar is extended until the scalar is complete.
+ */
+final class TextFormatEventReader {
+
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final int ELEMENT = 0;
+    private static final int VALUE = 1;
+    private static final int SKIPPED = 2;
+
+    private final Charset charset;
+    private final TaggedNode.TagType[] possibleTags;
+    private final Predicate<String> keyWithoutEquals;
+    private final NodeVisitor visitor;
+
+    private int depth;
+    private int skipDepth;
+    private boolean skipNext;
+    private boolean afterKey;
+    private boolean inTagged;
+    private boolean openedElement;
+    private boolean skippedNode;
+
+    private NodeContext pendingContext;
+    private int pendingIndex;
+    private boolean pendingQuoted;
+    private int pendingRole;
+
+    private byte[] data;
+    private int lastKnownOffset;
+
+    TextFormatEventReader(Charset charset, TaggedNode.TagType[] possibleTags, Predicate<String> keyWithoutEquals, NodeVisitor visitor) {
+        this.charset = charset;
+        this.possibleTags = possibleTags;
+        this.keyWithoutEquals = keyWithoutEquals;
+        this.visitor = visitor;
+    }
+
+    void read(InputStream in) throws IOException, ParseException {
+        byte[] window = new byte[CHUNK_SIZE];
+        int filled = 0;
+        boolean first = true;
+        boolean eof = false;
+        while (true) {
+            while (filled < window.length && !eof) {
+                int read = in.read(window, filled, window.length - filled);
+                if (read == -1) {
+                    eof = true;
+                } else {
+                    filled += read;
+                }
+            }
+
+            int cut = eof ? filled : lastNewLine(window, filled) + 1;
+            TextFormatTokenizer tokenizer = null;
+            if (cut > 0 || eof) {
+                tokenizer = new TextFormatTokenizer(window, null, 0, cut, false, !first);
+                tokenizer.tokenizeChunk();
+            }
+
+            // The chunk has to be larger to contain a complete line or quoted scalar
+            if (tokenizer == null || (!eof && tokenizer.endsInQuotes())) {
+                window = Arrays.copyOf(window, window.length * 2);
+                continue;
+            }
+
+            accept(tokenizer.getTokenTypes(), new NodeContext(window, charset,
+                    tokenizer.getScalarsStart(), tokenizer.getScalarsLength(), tokenizer.getScalarCount()));
+            if (eof) {
+                break;
+            }
+
+            // The window is reused for the next chunk
+            detachPending();
+            System.arraycopy(window, cut, window, 0, filled - cut);
+            filled -= cut;
+            first = false;
+        }
+        finish();
+    }
+
+    private static int lastNewLine(byte[] window, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (window[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    void accept(byte[] tokenTypes, NodeContext context) throws ParseException {
+        this.data = context.getData();
+        int scalarIndex = 0;
+        for (byte tokenType : tokenTypes) {
+            if (tokenType == TextFormatTokenizer.STRING_UNQUOTED || tokenType == TextFormatTokenizer.STRING_QUOTED) {
+                lastKnownOffset = context.getLiteralsBegin()[scalarIndex];
+                accept(tokenType, context, scalarIndex++);
+            } else {
+                accept(tokenType, null, -1);
+            }
+        }
+    }
+
+    void finish() throws ParseException {
+        if (inTagged) {
+            inTagged = false;
+            visitor.endTagged();
+        }
+
+        // Close all unclosed arrays and finally the root array
+        skipDepth = 0;
+        while (depth > 0) {
+            if (pendingContext != null) {
+                resolvePending(TextFormatTokenizer.CLOSE_GROUP);
+            }
+            if (afterKey) {
+                throw new ParseException("encountered unexpected }", lastKnownOffset, data);
+            }
+
+            skipNext = false;
+            depth--;
+            visitor.endArray();
+        }
+    }
+
+    private void detachPending() {
+        if (pendingContext == null) {
+            return;
+        }
+
+        var bytes = pendingContext.getLiteralBytes(pendingIndex);
+        pendingContext = new NodeContext(bytes, charset, new int[]{0}, new short[]{(short) bytes.length}, 1);
+        pendingIndex = 0;
+    }
+
+    private void accept(byte tokenType, NodeContext context, int scalarIndex) throws ParseException {
+        // Additional closing brackets on the top level are ignored, like in the tokenizer.
+        // This also applies to the closing bracket of the root array, which is handled when finishing
+        if (tokenType == TextFormatTokenizer.CLOSE_GROUP && depth <= 1 && skipDepth == 0 && !inTagged) {
+            return;
+        }
+
+        if (skipDepth > 0) {
+            if (tokenType == TextFormatTokenizer.OPEN_GROUP) {
+                skipDepth++;
+            } else if (tokenType == TextFormatTokenizer.CLOSE_GROUP) {
+                skipDepth--;
+                skippedNode = skipDepth == 0;
+            }
+            return;
+        }
+
+        // The parser does not expect another missing key directly after a discarded node
+        if (skippedNode) {
+            skippedNode = false;
+            if (tokenType == TextFormatTokenizer.EQUALS) {
+                throw new ParseException("encountered unexpected =", lastKnownOffset, data);
+            }
+        }
+
+        if (inTagged) {
+            if (context != null) {
+                visitor.scalar(context, scalarIndex);
+            } else if (tokenType == TextFormatTokenizer.CLOSE_GROUP) {
+                inTagged = false;
+                visitor.endTagged();
+            }
+            return;
+        }
+
+        if (pendingContext != null && resolvePending(tokenType)) {
+            return;
+        }
+
+        // An unnamed array can not be used as a key
+        boolean invalidKey = openedElement && tokenType == TextFormatTokenizer.EQUALS;
+        openedElement = false;
+        if (invalidKey) {
+            throw new ParseException("Expected key", lastKnownOffset, data);
+        }
+
+        if (context != null) {
+            pendingRole = skipNext ? SKIPPED : (afterKey ? VALUE : ELEMENT);
+            pendingContext = context;
+            pendingIndex = scalarIndex;
+            pendingQuoted = tokenType == TextFormatTokenizer.STRING_QUOTED;
+            skipNext = false;
+            afterKey = false;
+            return;
+        }
+
+        if (tokenType == TextFormatTokenizer.EQUALS) {
+            if (afterKey || skipNext) {
+                throw new ParseException("encountered unexpected =", lastKnownOffset, data);
+            }
+
+            // Discard the next node as the key is missing
+            skipNext = true;
+        } else if (tokenType == TextFormatTokenizer.OPEN_GROUP) {
+            if (skipNext) {
+                skipNext = false;
+                skipDepth = 1;
+                return;
+            }
+
+            openedElement = !afterKey && depth > 0;
+            afterKey = false;
+            depth++;
+            visitor.startArray();
+        } else if (tokenType == TextFormatTokenizer.CLOSE_GROUP) {
+            if (afterKey) {
+                throw new ParseException("encountered unexpected }", lastKnownOffset, data);
+            }
+
+            skipNext = false;
+            depth--;
+            visitor.endArray();
+        }
+    }
+
+    private TaggedNode.TagType getTagType(NodeContext context, int index, boolean quoted, byte nextTokenType) {
+        if (nextTokenType != TextFormatTokenizer.OPEN_GROUP || quoted) {
+            return null;
+        }
+
+        return TaggedNode.getTagType(possibleTags, context, index);
+    }
+
+    /**
+     * Emits the pending scalar depending on the next token and returns whether the next token has been consumed by it.
+     */
+    private boolean resolvePending(byte nextTokenType) throws ParseException {
+        var context = pendingContext;
+        var index = pendingIndex;
+        pendingContext = null;
+
+        var tag = getTagType(context, index, pendingQuoted, nextTokenType);
+        if (pendingRole == SKIPPED) {
+            if (tag != null) {
+                skipDepth = 1;
+                return true;
+            }
+            if (nextTokenType == TextFormatTokenizer.EQUALS) {
+                throw new ParseException("encountered unexpected =", lastKnownOffset, data);
+            }
+            return false;
+        }
+
+        if (pendingRole == ELEMENT && nextTokenType == TextFormatTokenizer.EQUALS) {
+            visitor.key(context, index);
+            afterKey = true;
+            return true;
+        }
+
+        if (pendingRole == ELEMENT && nextTokenType == TextFormatTokenizer.OPEN_GROUP && !pendingQuoted &&
+                keyWithoutEquals.test(context.evaluateKey(index))) {
+            visitor.key(context, index);
+            afterKey = true;
+            return false;
+        }
+
+        if (tag != null) {
+            visitor.startTagged(tag);
+            inTagged = true;
+            return true;
+        }
+
+        visitor.scalar(context, index);
+        return false;
+    }
+}
@@ -3,11 +3,15 @@ package com.crschnick.pdxu.io.parser;
 import com.crschnick.pdxu.io.node.*;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -59,21 +63,82 @@ public final class TextFormatParser {
                 s -> false);
     }
 
+    private static final int LAZY_MIN_TOKENS = 64;
+
     private final Charset charset;
     private final TaggedNode.TagType[] possibleTags;
     private final Predicate<String> keyWithoutEquals;
+    private final int parallelism;
+    private final boolean lazy;
+    private final NodeProjection projection;
+    private final boolean tape;
 
     private int index;
     private int slIndex;
     private int arrayIndex;
     private int lastKnownOffset;
-    private TextFormatTokenizer tokenizer;
+    private ByteBuffer input;
+    private byte[] tokenTypes;
+    private int[] arraySizes;
     private NodeContext context;
+    private SkipIndex skipIndex;
+    private NodeTape.Builder tapeBuilder;
 
     public TextFormatParser(Charset charset, TaggedNode.TagType[] possibleTags, Predicate<String> keyWithoutEquals) {
+        this(charset, possibleTags, keyWithoutEquals, 1);
+    }
+
+    public TextFormatParser(Charset charset, TaggedNode.TagType[] possibleTags, Predicate<String> keyWithoutEquals, int parallelism) {
+        this(charset, possibleTags, keyWithoutEquals, parallelism, false, null, false);
+    }
+
+    private TextFormatParser(Charset charset, TaggedNode.TagType[] possibleTags, Predicate<String> keyWithoutEquals,
+                             int parallelism, boolean lazy, NodeProjection projection, boolean tape) {
         this.charset = charset;
         this.possibleTags = possibleTags;
         this.keyWithoutEquals = keyWithoutEquals;
+        this.parallelism = parallelism;
+        this.lazy = lazy;
+        this.projection = projection;
+        this.tape = tape;
+    }
+
+    /**
+     * Returns a parser that tokenizes large inputs in parallel using all available processors.
+     * The result is the same as the one of a sequential parser.
+     */
+    public TextFormatParser parallel() {
+        return new TextFormatParser(charset, possibleTags, keyWithoutEquals, Runtime.getRuntime().availableProcessors(), lazy, projection, tape);
+    }
+
+    /**
+     * Returns a parser that only creates nested arrays once they are accessed for the first time.
+     * Until then, only the position of an array in the token stream is recorded and its content is skipped.
+     * The token types and array sizes are therefore kept alive as long as there are nodes that are not loaded yet.
+     * Errors inside a nested array are thrown as a {@link NodeFormatException} when it is loaded.
+     * Strict parsing is not affected by this, since it has to validate the complete input anyway.
+     */
+    public TextFormatParser lazy() {
+        return new TextFormatParser(charset, possibleTags, keyWithoutEquals, parallelism, true, projection, tape);
+    }
+
+    /**
+     * Returns a parser that only creates the nodes that are part of the projection.
+     * All other nodes are skipped on the token level and are not contained in the result.
+     * Like lazy parsing, this has no effect on strict parsing. A null projection includes all nodes.
+     */
+    public TextFormatParser project(NodeProjection projection) {
+        return new TextFormatParser(charset, possibleTags, keyWithoutEquals, parallelism, lazy, projection, tape);
+    }
+
+    /**
+     * Returns a parser that stores the complete node tree in a {@link NodeTape} instead of creating a node for every array.
+     * This reduces the memory footprint of a parsed tree by several times, but all nodes are read-only views.
+     * Changes made to a node, e.g. with {@link ValueNode#set(ValueNode)}, are therefore lost.
+     * Lazy parsing has no effect on tape parsing and strict parsing is not affected by this either.
+     */
+    public TextFormatParser tape() {
+        return new TextFormatParser(charset, possibleTags, keyWithoutEquals, parallelism, lazy, projection, true);
     }
 
     private void reset() {
@@ -81,8 +146,12 @@ public final class TextFormatParser {
         this.lastKnownOffset = 0;
         this.slIndex = 0;
         this.arrayIndex = 0;
-        this.tokenizer = null;
+        this.input = null;
+        this.tokenTypes = null;
+        this.arraySizes = null;
         this.context = null;
+        this.skipIndex = null;
+        this.tapeBuilder = null;
     }
 
     public final synchronized ArrayNode parse(Path file) throws IOException, ParseException {
@@ -98,47 +167,218 @@ public final class TextFormatParser {
     }
 
     public final synchronized ArrayNode parse(byte[] input, int start, boolean strict) throws ParseException {
-        try {
-            this.tokenizer = new TextFormatTokenizer(input, start, strict);
+        return parse(input, null, start, strict);
+    }
+
+    /**
+     * Parses the content of a file channel by memory mapping it.
+     * The file content is therefore not copied into the heap, but the returned nodes keep the mapping alive.
+     * Note that some operating systems do not allow a file to be modified while it is mapped.
+     */
+    public final synchronized ArrayNode parse(FileChannel channel, boolean strict) throws IOException, ParseException {
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("File is too large to be mapped: " + channel.size() + " bytes");
+        }
+
+        return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), 0, strict);
+    }
+
+    /**
+     * Parses the content of a buffer, e.g. a memory mapped file.
+     * All offsets are absolute and the buffer position is ignored.
+     */
+    public final synchronized ArrayNode parse(ByteBuffer input, int start, boolean strict) throws ParseException {
+        return parse(null, input, start, strict);
+    }
 
+    private ArrayNode parse(byte[] bytes, ByteBuffer buffer, int start, boolean strict) throws ParseException {
+        try {
             // var now = Instant.now();
-            this.tokenizer.tokenize();
+            tokenize(bytes, buffer, start, strict);
             // System.out.println("Tokenizer took " + ChronoUnit.MILLIS.between(now, Instant.now()) + "ms");
 
-            this.context = new NodeContext(input, charset,
+            return parseTokens(strict);
+        } catch (ParseException ex) {
+            throw ex;
+        }  catch (Throwable t) {
+            // Catch also errors!
+            throw new ParseException(t);
+        } finally {
+            // Always reset!
+            reset();
+        }
+    }
+
+    /**
+     * Only tokenizes the input. The returned snapshot can be parsed multiple times with {@link #parse(TokenSnapshot)}
+     * and with any parser for the same format, regardless of its projection.
+     */
+    public final synchronized TokenSnapshot tokenize(byte[] input, int start) throws ParseException {
+        try {
+            tokenize(input, null, start, false);
+            return new TokenSnapshot(input, tokenTypes, arraySizes,
+                    context.getLiteralsBegin(), context.getLiteralsLength(), context.getLiteralsCount());
+        } catch (ParseException ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new ParseException(t);
+        } finally {
+            reset();
+        }
+    }
+
+    /**
+     * Parses previously created tokens without tokenizing the input again.
+     */
+    public final synchronized ArrayNode parse(TokenSnapshot tokens) throws ParseException {
+        try {
+            var bytes = tokens.getBytes();
+            this.input = ByteBuffer.wrap(bytes);
+            this.tokenTypes = tokens.getTokenTypes();
+            this.arraySizes = tokens.getArraySizes();
+            this.context = createContext(bytes, null,
+                    tokens.getScalarsStart(),
+                    tokens.getScalarsLength(),
+                    tokens.getScalarCount(), projection == null);
+            return parseTokens(false);
+        } catch (ParseException ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new ParseException(t);
+        } finally {
+            reset();
+        }
+    }
+
+    /**
+     * Parses the binary format of ironman savegames, starting directly after the header.
+     * The result is the same as for the melted text, so lazy parsing, projections and tapes work as usual.
+     * Unknown tokens are kept as {@code __unknown_0x????} keys.
+     */
+    public final synchronized ArrayNode parseBinary(byte[] input, int start, BinaryFormatFlavor flavor,
+                                                    BinaryTokenDictionary dictionary) throws ParseException {
+        try {
+            var tokenizer = new BinaryFormatTokenizer(input, start, flavor, dictionary);
+            tokenizer.tokenize();
+            var data = tokenizer.getData();
+            this.input = ByteBuffer.wrap(data);
+            this.tokenTypes = tokenizer.getTokenTypes();
+            this.arraySizes = tokenizer.getArraySizes();
+            this.context = createContext(data, null,
                     tokenizer.getScalarsStart(),
                     tokenizer.getScalarsLength(),
-                    tokenizer.getScalarCount());
+                    tokenizer.getScalarCount(), false);
+            return parseTokens(false);
+        } catch (ParseException ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new ParseException(t);
+        } finally {
+            reset();
+        }
+    }
+
+    private ArrayNode parseTokens(boolean strict) throws ParseException {
+        if ((lazy || projection != null) && !strict) {
+            this.skipIndex = new SkipIndex(tokenTypes, arraySizes.length);
+        }
+
+        // var now = Instant.now();
+        if (tape && !strict) {
+            this.tapeBuilder = new NodeTape.Builder(context, projection != null ? 0 : getMaxTapeSize());
+            return tapeBuilder.build(parseTapeArray(projection));
+        }
 
-            // now = Instant.now();
-            ArrayNode r = parseArray(strict);
-            // System.out.println("Node creator took " + ChronoUnit.MILLIS.between(now, Instant.now()) + "ms");
+        ArrayNode r = parseArray(strict, strict ? null : projection);
+        // System.out.println("Node creator took " + ChronoUnit.MILLIS.between(now, Instant.now()) + "ms");
 
-            return r;
+        return r;
+    }
+
+    /**
+     * Reports the content of the input to a visitor without creating a node tree.
+     * For valid input, the events describe the same tree that this parser would return without a projection.
+     */
+    public final synchronized void visit(byte[] input, int start, NodeVisitor visitor) throws ParseException {
+        try {
+            tokenize(input, null, start, false);
+            var reader = new TextFormatEventReader(charset, possibleTags, keyWithoutEquals, visitor);
+            reader.accept(tokenTypes, context);
+            reader.finish();
         } catch (ParseException ex) {
             throw ex;
-        }  catch (Throwable t) {
-            // Catch also errors!
+        } catch (Throwable t) {
             throw new ParseException(t);
         } finally {
-            // Always reset!
             reset();
         }
     }
 
+    /**
+     * Reports the content of a stream to a visitor, starting at its current position.
+     * The stream is read and tokenized in chunks, so that the input does not have to fit into memory at once.
+     */
+    public void visit(InputStream in, NodeVisitor visitor) throws IOException, ParseException {
+        try {
+            new TextFormatEventReader(charset, possibleTags, keyWithoutEquals, visitor).read(in);
+        } catch (IOException | ParseException ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new ParseException(t);
+        }
+    }
+
+    private void tokenize(byte[] bytes, ByteBuffer buffer, int start, boolean strict) throws ParseException {
+        this.input = bytes != null ? ByteBuffer.wrap(bytes) : buffer;
+        if (parallelism > 1) {
+            var tokenizer = new ParallelTextFormatTokenizer(bytes, buffer, input.limit(), start, strict, parallelism);
+            tokenizer.tokenize();
+            this.tokenTypes = tokenizer.getTokenTypes();
+            this.arraySizes = tokenizer.getArraySizes();
+            this.context = createContext(bytes, buffer,
+                    tokenizer.getScalarsStart(),
+                    tokenizer.getScalarsLength(),
+                    tokenizer.getScalarCount(), projection == null || strict);
+        } else {
+            var tokenizer = new TextFormatTokenizer(bytes, buffer, start, input.limit(), strict, false);
+            tokenizer.tokenize();
+            this.tokenTypes = tokenizer.getTokenTypes();
+            this.arraySizes = tokenizer.getArraySizes();
+            this.context = createContext(bytes, buffer,
+                    tokenizer.getScalarsStart(),
+                    tokenizer.getScalarsLength(),
+                    tokenizer.getScalarCount(), projection == null || strict);
+        }
+    }
+
+    // Without a projection, the input contains exactly the parsed nodes and can be used to write unchanged arrays
+    private NodeContext createContext(byte[] bytes, ByteBuffer buffer, int[] scalarsStart, short[] scalarsLength, int scalarCount,
+                                      boolean source) {
+        if (bytes != null) {
+            return new NodeContext(bytes, charset, scalarsStart, scalarsLength, scalarCount, source);
+        } else {
+            return new NodeContext(buffer, charset, scalarsStart, scalarsLength, scalarCount, source);
+        }
+    }
+
     private void updateLastKnownOffset() {
+        // The scalar arrays are exactly sized, so there is no next scalar after the last one
+        if (slIndex == context.getLiteralsCount()) {
+            return;
+        }
+
         this.lastKnownOffset = context.getLiteralsBegin()[slIndex] + context.getLiteralsLength()[slIndex];
     }
 
-    private Node parseNodeIfNotScalarValue(boolean strict) throws ParseException {
-        var tt = tokenizer.getTokenTypes();
+    private Node parseNodeIfNotScalarValue(boolean strict, NodeProjection projection) throws ParseException {
+        var tt = tokenTypes;
         if (tt[index] == TextFormatTokenizer.STRING_UNQUOTED) {
             var colorType = tt[index + 1] == TextFormatTokenizer.OPEN_GROUP ?
                     TaggedNode.getTagType(possibleTags, context, slIndex) : null;
 
             if (colorType != null) {
                 if (tt[index + 1] != TextFormatTokenizer.OPEN_GROUP) {
-                    throw new ParseException("Expected {", index, context.getData());
+                    throw new ParseException("Expected {", index, input);
                 }
 
                 // Move over color id
@@ -165,13 +405,16 @@ public final class TextFormatParser {
             }
         } else {
             if (tt[index] == TextFormatTokenizer.EQUALS) {
-                throw new ParseException("encountered unexpected =", index, context.getData());
+                throw new ParseException("encountered unexpected =", index, input);
             }
             if (tt[index] == TextFormatTokenizer.CLOSE_GROUP) {
-                throw new ParseException("encountered unexpected }", index, context.getData());
+                throw new ParseException("encountered unexpected }", index, input);
             }
             if (tt[index] == TextFormatTokenizer.OPEN_GROUP) {
-                return parseArray(strict);
+                if (projection != null && !projection.isComplete()) {
+                    return parseArray(strict, projection);
+                }
+                return lazy && skipIndex != null ? parseArrayLazily() : parseArray(strict, null);
             }
         }
 
@@ -184,7 +427,15 @@ public final class TextFormatParser {
     }
 
     private void skipOverNextNode(boolean strict) throws ParseException {
-        var res = parseNodeIfNotScalarValue(strict);
+        if (skipIndex != null && tokenTypes[index] == TextFormatTokenizer.OPEN_GROUP) {
+            int array = arrayIndex;
+            index = skipIndex.tokenEnds[array];
+            slIndex = skipIndex.scalarEnds[array];
+            arrayIndex = skipIndex.arrayEnds[array];
+            return;
+        }
+
+        var res = parseNodeIfNotScalarValue(strict, null);
 
         // Node is a scalar, therefore move manually
         if (res == null) {
@@ -193,13 +444,59 @@ public final class TextFormatParser {
         }
     }
 
-    private ArrayNode parseArray(boolean strict) throws ParseException {
-        var tt = tokenizer.getTokenTypes();
+    private ArrayNode parseArrayLazily() throws ParseException {
+        int tokenIndex = index;
+        int scalarIndex = slIndex;
+        int array = arrayIndex;
+
+        // Small arrays are cheaper to create directly
+        var skip = skipIndex;
+        if (skip.tokenEnds[array] - tokenIndex < LAZY_MIN_TOKENS) {
+            return parseArray(false, null);
+        }
+
+        var in = input;
+        var tt = tokenTypes;
+        var sizes = arraySizes;
+        var ctx = context;
+        var node = new LazyArrayNode(() -> new TextFormatParser(charset, possibleTags, keyWithoutEquals, 1, true, null, false)
+                .parseSubtree(in, tt, sizes, ctx, skip, tokenIndex, scalarIndex, array));
+
+        index = skip.tokenEnds[array];
+        slIndex = skip.scalarEnds[array];
+        arrayIndex = skip.arrayEnds[array];
+        updateLastKnownOffset();
+        return node;
+    }
+
+    private ArrayNode parseSubtree(ByteBuffer input, byte[] tokenTypes, int[] arraySizes, NodeContext context, SkipIndex skipIndex,
+                                   int tokenIndex, int scalarIndex, int arrayIndex) {
+        try {
+            this.input = input;
+            this.tokenTypes = tokenTypes;
+            this.arraySizes = arraySizes;
+            this.context = context;
+            this.skipIndex = skipIndex;
+            this.index = tokenIndex;
+            this.slIndex = scalarIndex;
+            this.arrayIndex = arrayIndex;
+            updateLastKnownOffset();
+            return parseArray(false, null);
+        } catch (ParseException ex) {
+            throw new NodeFormatException("Unable to parse array: " + ex.getMessage(), ex);
+        } finally {
+            reset();
+        }
+    }
+
+    private ArrayNode parseArray(boolean strict, NodeProjection projection) throws ParseException {
+        var tt = tokenTypes;
+        boolean projected = projection != null && !projection.isComplete();
 
         assert tt[index] == TextFormatTokenizer.OPEN_GROUP : "Expected {";
         index++;
 
-        var size = tokenizer.getArraySizes()[arrayIndex++];
+        var size = arraySizes[arrayIndex++];
         var builder = new ArrayNode.Builder(context, size);
         while (true) {
             assert index < tt.length : "Reached EOF but found no closing group token";
@@ -227,14 +524,20 @@ public final class TextFormatParser {
             if (isKeyValue) {
                 if (tt[index] != TextFormatTokenizer.STRING_UNQUOTED &&
                         tt[index] != TextFormatTokenizer.STRING_QUOTED) {
-                    throw new ParseException("Expected key", lastKnownOffset, context.getData());
+                    throw new ParseException("Expected key", lastKnownOffset, input);
                 }
 
                 int keyIndex = slIndex;
                 moveToNextScalar();
                 index += 2;
 
-                Node result = parseNodeIfNotScalarValue(strict);
+                var valueProjection = projected ? projection.getChild(context.evaluateKey(keyIndex)) : null;
+                if (projected && valueProjection == null) {
+                    skipOverNextNode(strict);
+                    continue;
+                }
+
+                Node result = parseNodeIfNotScalarValue(strict, valueProjection);
                 if (result == null) {
                     // System.out.println("key: " + context.evaluate(keyIndex));
                     // System.out.println("val: " + context.evaluate(slIndex));
@@ -254,11 +557,18 @@ public final class TextFormatParser {
 
             boolean isKeyValueWithoutEquals = tt[index] == TextFormatTokenizer.STRING_UNQUOTED &&
                     tt[index + 1] == TextFormatTokenizer.OPEN_GROUP;
-            if (isKeyValueWithoutEquals && keyWithoutEquals.test(context.evaluate(slIndex))) {
+            if (isKeyValueWithoutEquals && keyWithoutEquals.test(context.evaluateKey(slIndex))) {
                 int keyIndex = slIndex;
                 moveToNextScalar();
                 index++;
-                Node result = parseNodeIfNotScalarValue(strict);
+
+                var valueProjection = projected ? projection.getChild(context.evaluateKey(keyIndex)) : null;
+                if (projected && valueProjection == null) {
+                    skipOverNextNode(strict);
+                    continue;
+                }
+
+                Node result = parseNodeIfNotScalarValue(strict, valueProjection);
                 assert result != null : "KeyValue without equal sign must be an array node";
                 builder.putKeyAndNodeValue(keyIndex, result);
 
@@ -266,7 +576,13 @@ public final class TextFormatParser {
             }
 
             // Parse unnamed array element
-            Node result = parseNodeIfNotScalarValue(strict);
+            var valueProjection = projected ? projection.getChild(null) : null;
+            if (projected && valueProjection == null) {
+                skipOverNextNode(strict);
+                continue;
+            }
+
+            Node result = parseNodeIfNotScalarValue(strict, valueProjection);
             if (result == null) {
                 builder.putScalarValue(slIndex);
                 index++;
@@ -277,7 +593,183 @@ public final class TextFormatParser {
         }
     }
 
+    private int getMaxTapeSize() {
+        // Every array needs at most one word for its size and two words for every entry, a tagged node needs three words
+        long size = 0;
+        for (int arraySize : arraySizes) {
+            size += 2 + 2L * arraySize;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE - 8);
+    }
+
+    private int parseTapeNodeIfNotScalarValue(NodeProjection projection) throws ParseException {
+        var tt = tokenTypes;
+        if (tt[index] == TextFormatTokenizer.STRING_UNQUOTED) {
+            var colorType = tt[index + 1] == TextFormatTokenizer.OPEN_GROUP ?
+                    TaggedNode.getTagType(possibleTags, context, slIndex) : null;
+            if (colorType != null) {
+                // Move over color id and opening {
+                index += 2;
+                moveToNextScalar();
+
+                int first = slIndex;
+                while (tt[index] != TextFormatTokenizer.CLOSE_GROUP) {
+                    moveToNextScalar();
+                    index++;
+                }
+
+                // Move over closing }
+                index++;
+
+                // A color is also an array, so we have to move the array index!
+                arrayIndex++;
+
+                return tapeBuilder.putTaggedNode(colorType, first, slIndex - first);
+            }
+        } else {
+            if (tt[index] == TextFormatTokenizer.EQUALS) {
+                throw new ParseException("encountered unexpected =", index, input);
+            }
+            if (tt[index] == TextFormatTokenizer.CLOSE_GROUP) {
+                throw new ParseException("encountered unexpected }", index, input);
+            }
+            if (tt[index] == TextFormatTokenizer.OPEN_GROUP) {
+                return parseTapeArray(projection);
+            }
+        }
+
+        return -1;
+    }
+
+    private int parseTapeArray(NodeProjection projection) throws ParseException {
+        var tt = tokenTypes;
+        var builder = tapeBuilder;
+        boolean projected = projection != null && !projection.isComplete();
+
+        assert tt[index] == TextFormatTokenizer.OPEN_GROUP : "Expected {";
+        index++;
+
+        var array = builder.beginArray(arraySizes[arrayIndex++]);
+        while (true) {
+            assert index < tt.length : "Reached EOF but found no closing group token";
+
+            // Discard nodes with missing keys
+            if (tt[index] == TextFormatTokenizer.EQUALS) {
+                index++;
+                if (tt[index] != TextFormatTokenizer.CLOSE_GROUP) {
+                    skipOverNextNode(false);
+                }
+            }
+
+            if (tt[index] == TextFormatTokenizer.CLOSE_GROUP) {
+                index++;
+                return array;
+            }
+
+            boolean isKeyValue = tt[index + 1] == TextFormatTokenizer.EQUALS;
+            if (isKeyValue) {
+                if (tt[index] != TextFormatTokenizer.STRING_UNQUOTED &&
+                        tt[index] != TextFormatTokenizer.STRING_QUOTED) {
+                    throw new ParseException("Expected key", lastKnownOffset, input);
+                }
+
+                int keyIndex = slIndex;
+                moveToNextScalar();
+                index += 2;
+
+                var valueProjection = projected ? projection.getChild(context.evaluateKey(keyIndex)) : null;
+                if (projected && valueProjection == null) {
+                    skipOverNextNode(false);
+                    continue;
+                }
+
+                int result = parseTapeNodeIfNotScalarValue(valueProjection);
+                if (result == -1) {
+                    builder.putKeyAndScalarValue(array, keyIndex, slIndex);
+                    index++;
+                    moveToNextScalar();
+                } else {
+                    builder.putKeyAndNodeValue(array, keyIndex, result);
+                }
+                continue;
+            }
+
+            boolean isKeyValueWithoutEquals = tt[index] == TextFormatTokenizer.STRING_UNQUOTED &&
+                    tt[index + 1] == TextFormatTokenizer.OPEN_GROUP;
+            if (isKeyValueWithoutEquals && keyWithoutEquals.test(context.evaluateKey(slIndex))) {
+                int keyIndex = slIndex;
+                moveToNextScalar();
+                index++;
+
+                var valueProjection = projected ? projection.getChild(context.evaluateKey(keyIndex)) : null;
+                if (projected && valueProjection == null) {
+                    skipOverNextNode(false);
+                    continue;
+                }
+
+                builder.putKeyAndNodeValue(array, keyIndex, parseTapeArray(valueProjection));
+                continue;
+            }
+
+            // Parse unnamed array element
+            var valueProjection = projected ? projection.getChild(null) : null;
+            if (projected && valueProjection == null) {
+                skipOverNextNode(false);
+                continue;
+            }
+
+            int result = parseTapeNodeIfNotScalarValue(valueProjection);
+            if (result == -1) {
+                builder.putScalarValue(array, slIndex);
+                index++;
+                moveToNextScalar();
+            } else {
+                builder.putNodeValue(array, result);
+            }
+        }
+    }
+
     public Charset getCharset() {
         return charset;
     }
+
+    /**
+     * Contains the token, scalar and array index directly after the closing bracket of every array,
+     * which allows the parser to skip over arrays in constant time.
+     */
+    private static final class SkipIndex {
+
+        private final int[] tokenEnds;
+        private final int[] scalarEnds;
+        private final int[] arrayEnds;
+
+        private SkipIndex(byte[] tokenTypes, int arrayCount) {
+            this.tokenEnds = new int[arrayCount];
+            this.scalarEnds = new int[arrayCount];
+            this.arrayEnds = new int[arrayCount];
+
+            int[] stack = new int[32];
+            int stackSize = 0;
+            int scalars = 0;
+            int arrays = 0;
+            for (int i = 0; i < tokenTypes.length; i++) {
+                var t = tokenTypes[i];
+                if (t == TextFormatTokenizer.OPEN_GROUP) {
+                    if (stackSize == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[stackSize++] = arrays++;
+                } else if (t == TextFormatTokenizer.CLOSE_GROUP) {
+                    if (stackSize > 0) {
+                        int array = stack[--stackSize];
+                        tokenEnds[array] = i + 1;
+                        scalarEnds[array] = scalars;
+                        arrayEnds[array] = arrays;
+                    }
+                } else if (t != TextFormatTokenizer.EQUALS) {
+                    scalars++;
+                }
+            }
+        }
+    }
 }
@@ -1,7 +1,10 @@
 package com.crschnick.pdxu.io.parser;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
-import java.util.Stack;
 
 public class TextFormatTokenizer {
 
@@ -14,171 +17,285 @@ public class TextFormatTokenizer {
     private static final byte DOUBLE_QUOTE_CHAR = 34;
     private static final byte[] UTF_8_BOM = new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
 
+    /*
+    The tokenizer does not look at every byte individually.
+    Instead, it reads 8 bytes at once as a long and computes a bitmask of all bytes that could
+    be structural characters using SWAR (SIMD within a register) operations.
+    Only those candidate bytes are then classified using a lookup table,
+    while all other bytes are skipped as they can only be part of a scalar.
+     */
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BUFFER_LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long PADDING = 'a' * ONES;
+
+    // Candidate mask offset for all bytes < 0x24, which includes whitespace, '"' and '#'
+    private static final long BELOW_DOLLAR = (0x80 - '$') * ONES;
+
+    private static final byte SCALAR_CHAR = 0;
+    private static final byte WHITESPACE_CHAR = 6;
+    private static final byte QUOTE_CHAR = 7;
+    private static final byte COMMENT_CHAR = 8;
+    private static final byte[] CHAR_CLASSES = new byte[256];
+
+    static {
+        CHAR_CLASSES['{'] = OPEN_GROUP;
+        CHAR_CLASSES['}'] = CLOSE_GROUP;
+        CHAR_CLASSES['='] = EQUALS;
+        CHAR_CLASSES['\n'] = WHITESPACE_CHAR;
+        CHAR_CLASSES['\r'] = WHITESPACE_CHAR;
+        CHAR_CLASSES[' '] = WHITESPACE_CHAR;
+        CHAR_CLASSES['\t'] = WHITESPACE_CHAR;
+        CHAR_CLASSES['"'] = QUOTE_CHAR;
+        CHAR_CLASSES['#'] = COMMENT_CHAR;
+    }
+
     private final boolean strict;
     private final byte[] bytes;
-    private byte[] tokenTypes;
-    private int[] scalarsStart;
-    private short[] scalarsLength;
-    private final Stack<Integer> arraySizeStack;
-    private int[] arraySizes;
+    private final ByteBuffer buffer;
+    private final int end;
+    private final boolean continuation;
+    private final PagedByteArray tokenTypes;
+    private final PagedIntArray scalarsStart;
+    private final PagedShortArray scalarsLength;
+    private final PagedIntArray arraySizes;
+    private byte[] tokenTypesArray;
+    private int[] scalarsStartArray;
+    private short[] scalarsLengthArray;
+    private int[] arraySizesArray;
+    private int[] arraySizeStack;
+    private int arraySizeStackSize;
     private boolean isInQuotes;
     private boolean isInComment;
     private int nextScalarStart;
     private int i;
-    private int tokenCounter;
-    private int scalarCounter;
-    private int arraySizesCounter;
-    private boolean escapeChar;
+    private int[] outerArrays;
+    private int outerArrayCount;
+    private boolean ambiguous;
 
     public TextFormatTokenizer(byte[] bytes, int start, boolean strict) {
+        this(bytes, null, start, bytes.length, strict, false);
+    }
+
+    /**
+     * Creates a tokenizer for a buffer, e.g. a memory mapped file.
+     * All offsets are absolute and the buffer position is ignored.
+     */
+    public TextFormatTokenizer(ByteBuffer buffer, int start, boolean strict) {
+        this(null, buffer, start, buffer.limit(), strict, false);
+    }
+
+    /**
+     * Creates a tokenizer for the range [start, end) of the input, which is either a byte array or a buffer.
+     * If continuation is true, the range is assumed to be part of a larger input and to start in
+     * an array that was opened before. Changes to such outer arrays are recorded separately.
+     */
+    TextFormatTokenizer(byte[] bytes, ByteBuffer buffer, int start, int end, boolean strict, boolean continuation) {
         this.bytes = bytes;
+        this.buffer = buffer;
+        this.end = end;
         this.strict = strict;
+        this.continuation = continuation;
         this.nextScalarStart = 0;
-        this.tokenCounter = 0;
 
-        int maxTokenCount;
-        int maxNodeCount;
-        if (bytes.length < 300) {
-            // Special case for small files
+        // The arrays grow in pages without copying, so these are only initial capacities for small inputs.
+        // Full pages are reused across tokenizers, see PagePool
+        // Add 2 to include open and close group tokens that are always added
+        int length = end - start;
+        this.tokenTypes = new PagedByteArray(length / 4 + 2, PagePool.SHARED);
+        this.scalarsStart = new PagedIntArray(length / 8 + 1, PagePool.SHARED);
+        this.scalarsLength = new PagedShortArray(length / 8 + 1, PagePool.SHARED);
+        this.arraySizes = new PagedIntArray(length / 16 + 1, PagePool.SHARED);
 
-            // Add 2 to include open and close group tokens that are always added
-            maxTokenCount = bytes.length + 2;
+        this.arraySizeStack = new int[32];
+        this.arraySizeStackSize = 0;
+        this.outerArrays = new int[8];
+        this.outerArrayCount = 0;
 
-            // Add 1 in case bytes.length is 0. We then still have one empty array node
-            maxNodeCount = bytes.length + 1;
-        } else {
-            // Pessimistic assumptions, should always hold!
-
-            maxTokenCount = bytes.length / 2;
-            maxNodeCount = bytes.length / 5;
-        }
+        this.i = start;
+        this.nextScalarStart = start;
+    }
 
-        this.tokenTypes = new byte[maxTokenCount];
-        this.scalarsStart = new int[maxNodeCount];
-        this.scalarsLength = new short[maxNodeCount];
-        this.arraySizes = new int[maxNodeCount];
+    private static long matchesByte(long word, char c) {
+        long x = word ^ (c * ONES);
+        return ~(((x & LOW_BITS) + LOW_BITS) | x) & HIGH_BITS;
+    }
 
-        this.arraySizeStack = new Stack<>();
-        this.arraySizesCounter = 0;
+    private static long structuralCandidates(long word) {
+        long belowDollar = ~(((word & LOW_BITS) + BELOW_DOLLAR) | word) & HIGH_BITS;
+        return belowDollar | matchesByte(word, '{') | matchesByte(word, '}') | matchesByte(word, '=');
+    }
 
-        this.i = start;
-        this.nextScalarStart = start;
+    private byte byteAt(int index) {
+        return bytes != null ? bytes[index] : buffer.get(index);
     }
 
-    private void checkResize() {
-        var maxTokenCount = tokenTypes.length;
-        var maxNodeCount = scalarsStart.length;
-        if (this.tokenCounter >= maxTokenCount || this.scalarCounter >= maxNodeCount) {
-            resize();
+    private long readWord(int index) {
+        if (index + 8 <= end) {
+            return bytes != null ? (long) LONG_VIEW.get(bytes, index) : (long) BUFFER_LONG_VIEW.get(buffer, index);
         }
-    }
 
-    private void resize() {
-        var maxTokenCount = tokenTypes.length;
-        var maxNodeCount = scalarsStart.length;
+        // Pad the last incomplete word with non-structural characters
+        long word = PADDING;
+        for (int k = 0; k < end - index; k++) {
+            word &= ~(0xFFL << (k * 8));
+            word |= (byteAt(index + k) & 0xFFL) << (k * 8);
+        }
+        return word;
+    }
 
-        var tokenTypes = new byte[maxTokenCount * 2];
-        System.arraycopy(this.tokenTypes, 0, tokenTypes, 0, maxTokenCount);
-        this.tokenTypes = tokenTypes;
+    private void pushArray(int arrayIndex) {
+        if (arraySizeStackSize == arraySizeStack.length) {
+            arraySizeStack = Arrays.copyOf(arraySizeStack, arraySizeStack.length * 2);
+        }
+        arraySizeStack[arraySizeStackSize++] = arrayIndex;
+    }
 
-        var scalarsStart = new int[maxNodeCount * 2];
-        System.arraycopy(this.scalarsStart, 0, scalarsStart, 0, maxNodeCount);
-        this.scalarsStart = scalarsStart;
+    private int currentArray() {
+        return arraySizeStack[arraySizeStackSize - 1];
+    }
 
-        var scalarsLength = new short[maxNodeCount * 2];
-        System.arraycopy(this.scalarsLength, 0, scalarsLength, 0, maxNodeCount);
-        this.scalarsLength = scalarsLength;
+    private void enterOuterArray() {
+        if (outerArrayCount == outerArrays.length) {
+            outerArrays = Arrays.copyOf(outerArrays, outerArrays.length * 2);
+        }
+        int arrayIndex = arraySizes.size();
+        outerArrays[outerArrayCount++] = arrayIndex;
+        arraySizes.add(0);
 
-        var arraySizes = new int[maxNodeCount * 2];
-        System.arraycopy(this.arraySizes, 0, arraySizes, 0, maxNodeCount);
-        this.arraySizes = arraySizes;
+        // The outer array is always at the bottom of the stack
+        if (arraySizeStackSize == 0) {
+            pushArray(arrayIndex);
+        } else {
+            arraySizeStack[0] = arrayIndex;
+        }
     }
 
     private void checkBom() {
-        if (bytes.length >= 3 && Arrays.equals(bytes, 0, 3, UTF_8_BOM, 0, 3)) {
+        int length = bytes != null ? bytes.length : buffer.limit();
+        if (length >= 3 && byteAt(0) == UTF_8_BOM[0] && byteAt(1) == UTF_8_BOM[1] && byteAt(2) == UTF_8_BOM[2]) {
             this.nextScalarStart += 3;
             this.i += 3;
         }
     }
 
     private void checkUnclosedArrays() throws ParseException {
-        if (strict && arraySizeStack.size() > 1) {
-            throw new ParseException("Missing closing } at the end of the file", i, bytes);
+        if (strict && arraySizeStackSize > 1) {
+            throw new ParseException("Missing closing } at the end of the file", i, getInput());
         }
 
-        for (int i = 1; i < arraySizeStack.size(); i++) {
-            tokenTypes[tokenCounter] = CLOSE_GROUP;
-            tokenCounter++;
+        for (int i = 1; i < arraySizeStackSize; i++) {
+            tokenTypes.add(CLOSE_GROUP);
         }
-        arraySizeStack.clear();
+        arraySizeStackSize = 0;
     }
 
     public void tokenize() throws ParseException {
-        tokenTypes[0] = OPEN_GROUP;
-        arraySizes[0] = 0;
-        arraySizeStack.add(0);
-        arraySizesCounter++;
-        tokenCounter = 1;
-        checkBom();
-        for (; i <= bytes.length; i++) {
-            tokenizeIteration();
-        }
+        tokenizeChunk();
         checkUnclosedArrays();
-        tokenTypes[tokenCounter] = CLOSE_GROUP;
+        tokenTypes.add(CLOSE_GROUP);
     }
 
-    private void moveScalarStartToNext() {
-        nextScalarStart = i + 1;
+    void tokenizeChunk() throws ParseException {
+        if (continuation) {
+            enterOuterArray();
+        } else {
+            tokenTypes.add(OPEN_GROUP);
+            arraySizes.add(0);
+            pushArray(0);
+            checkBom();
+        }
+        scan();
     }
 
-    private boolean checkCommentCase(char c) throws ParseException {
-        if (isInQuotes) {
-            return false;
-        }
+    private void scan() throws ParseException {
+        while (i < end) {
+            int base = i;
+            long candidates = structuralCandidates(readWord(base));
+            int next = base + 8;
+            while (candidates != 0) {
+                int pos = base + (Long.numberOfTrailingZeros(candidates) >>> 3);
+                candidates &= candidates - 1;
+
+                byte charClass = CHAR_CLASSES[byteAt(pos) & 0xFF];
+                if (charClass == SCALAR_CHAR) {
+                    continue;
+                }
 
-        if (!isInComment) {
-            if (c == '#') {
-                isInComment = true;
-                finishCurrentToken();
-                return true;
-            } else {
-                return false;
+                i = pos;
+                if (charClass == WHITESPACE_CHAR) {
+                    finishCurrentToken();
+                    moveScalarStartToNext();
+                } else if (charClass == QUOTE_CHAR) {
+                    finishCurrentToken();
+                    next = skipQuotedScalar();
+                    break;
+                } else if (charClass == COMMENT_CHAR) {
+                    finishCurrentToken();
+                    next = skipComment();
+                    break;
+                } else {
+                    checkForNewControlToken(charClass);
+                }
             }
+            i = next;
         }
 
-        if (c == '\n') {
-            isInComment = false;
-            moveScalarStartToNext();
+        // Treat the end of the input like a new line to finish the last token
+        i = end;
+        if (!isInQuotes && !isInComment) {
+            finishCurrentToken();
         }
-        return true;
     }
 
-    private boolean checkQuoteCase(char c) throws ParseException {
-        if (!isInQuotes) {
-            if (c == '"') {
-                isInQuotes = true;
-                finishCurrentToken();
-                return true;
+    private int skipQuotedScalar() throws ParseException {
+        int p = i + 1;
+        while (p < end) {
+            long word = readWord(p);
+            long matches = matchesByte(word, '"') | matchesByte(word, '\\');
+            if (matches == 0) {
+                p += 8;
+                continue;
+            }
+
+            int found = p + (Long.numberOfTrailingZeros(matches) >>> 3);
+            if (byteAt(found) == '\\') {
+                // Skip the escaped character
+                p = found + 2;
+                continue;
             }
 
-            return false;
+            i = found;
+            finishCurrentToken(found + 1);
+            return found + 1;
         }
 
-        boolean hasSeenEscapeChar = escapeChar;
-        if (hasSeenEscapeChar) {
-            escapeChar = false;
-            if (c == '"' || c == '\\') {
-                return true;
-            }
-        } else {
-            escapeChar = c == '\\';
-            if (c == '"') {
-                isInQuotes = false;
-                finishCurrentToken(i + 1);
+        isInQuotes = true;
+        return end;
+    }
+
+    private int skipComment() {
+        int p = i + 1;
+        while (p < end) {
+            long matches = matchesByte(readWord(p), '\n');
+            if (matches == 0) {
+                p += 8;
+                continue;
             }
+
+            int found = p + (Long.numberOfTrailingZeros(matches) >>> 3);
+            nextScalarStart = found + 1;
+            return found + 1;
         }
 
-        return true;
+        isInComment = true;
+        return end;
+    }
+
+    private void moveScalarStartToNext() {
+        nextScalarStart = i + 1;
     }
 
     private void finishCurrentToken() throws ParseException {
@@ -196,108 +313,157 @@ public class TextFormatTokenizer {
         // Check for length overflow
         if (length < 0) {
             throw new ParseException(
-                    "Encountered scalar with length " + ((endExclusive - 1) - nextScalarStart + 1) + ", which is too big", nextScalarStart, bytes);
+                    "Encountered scalar with length " + ((endExclusive - 1) - nextScalarStart + 1) + ", which is too big", nextScalarStart, getInput());
         }
 
         assert length > 0 : "Scalar must be of length at least 1";
 
-        if (bytes[nextScalarStart] == DOUBLE_QUOTE_CHAR && bytes[endExclusive - 1] == DOUBLE_QUOTE_CHAR) {
-            tokenTypes[tokenCounter++] = STRING_QUOTED;
+        if (byteAt(nextScalarStart) == DOUBLE_QUOTE_CHAR && byteAt(endExclusive - 1) == DOUBLE_QUOTE_CHAR) {
+            tokenTypes.add(STRING_QUOTED);
         } else {
-            tokenTypes[tokenCounter++] = STRING_UNQUOTED;
+            tokenTypes.add(STRING_UNQUOTED);
         }
-        scalarsStart[scalarCounter] = nextScalarStart;
-        scalarsLength[scalarCounter] = length;
-        scalarCounter++;
+        scalarsStart.add(nextScalarStart);
+        scalarsLength.add(length);
 
-        assert arraySizeStack.size() > 0 : "Encountered unexpectedly large array at index " + endExclusive;
-        arraySizes[arraySizeStack.peek()]++;
+        assert arraySizeStackSize > 0 : "Encountered unexpectedly large array at index " + endExclusive;
+        arraySizes.increment(currentArray());
 
         nextScalarStart = endExclusive;
     }
 
     private void checkForNewControlToken(byte controlToken) throws ParseException {
-        if (controlToken == 0) {
-            return;
-        }
-
         finishCurrentToken();
         moveScalarStartToNext();
 
         if (controlToken == CLOSE_GROUP) {
             // Special case for additional close group token on top level
             // Happens in CK2 and VIC2
-            if (arraySizeStack.size() == 1) {
-                if (strict) {
-                    throw new ParseException("Additional closing } at the of the file", i, bytes);
+            if (arraySizeStackSize == 1) {
+                if (continuation) {
+                    enterOuterArray();
+                } else {
+                    if (strict) {
+                        throw new ParseException("Additional closing } at the of the file", i, getInput());
+                    }
+
+                    return;
                 }
-
-                return;
+            } else {
+                arraySizeStackSize--;
             }
-            arraySizeStack.pop();
         } else if (controlToken == EQUALS) {
-            if (strict && arraySizes[arraySizeStack.peek()] == 0) {
-                throw new ParseException("Encountered invalid =", i, bytes);
-            }
-
-            if (arraySizes[arraySizeStack.peek()] > 0) {
-                arraySizes[arraySizeStack.peek()]--;
+            int current = currentArray();
+            int size = arraySizes.get(current);
+            if (size > 0) {
+                arraySizes.set(current, size - 1);
+            } else if (continuation && arraySizeStackSize == 1) {
+                // The size of the outer array is not known, so the result depends on the previous input
+                ambiguous = true;
+            } else if (strict) {
+                throw new ParseException("Encountered invalid =", i, getInput());
             }
         } else if (controlToken == OPEN_GROUP) {
-            arraySizes[arraySizeStack.peek()]++;
-            arraySizeStack.add(arraySizesCounter++);
+            arraySizes.increment(currentArray());
+            pushArray(arraySizes.size());
+            arraySizes.add(0);
         }
 
-        tokenTypes[tokenCounter++] = controlToken;
+        tokenTypes.add(controlToken);
     }
 
-    private void checkWhitespace(char c) throws ParseException {
-        boolean isWhitespace = (c == '\n' || c == '\r' || c == ' ' || c == '\t');
-        if (isWhitespace) {
-            finishCurrentToken();
-            moveScalarStartToNext();
-        }
+    private ByteBuffer getInput() {
+        return bytes != null ? ByteBuffer.wrap(bytes) : buffer;
     }
 
-    private void tokenizeIteration() throws ParseException {
-        // Add extra new line at the end to simulate end of token
-        char c = i == bytes.length ? '\n' : (char) bytes[i];
+    public byte[] getTokenTypes() {
+        if (tokenTypesArray == null) {
+            tokenTypesArray = tokenTypes.toArray();
+        }
+        return tokenTypesArray;
+    }
 
-        if (checkCommentCase(c)) return;
-        if (checkQuoteCase(c)) return;
+    public int[] getArraySizes() {
+        if (arraySizesArray == null) {
+            arraySizesArray = arraySizes.toArray();
+        }
+        return arraySizesArray;
+    }
 
-        checkResize();
+    public int[] getScalarsStart() {
+        if (scalarsStartArray == null) {
+            scalarsStartArray = scalarsStart.toArray();
+        }
+        return scalarsStartArray;
+    }
 
-        byte controlToken = 0;
-        if (c == '{') {
-            controlToken = OPEN_GROUP;
-        } else if (c == '}') {
-            controlToken = CLOSE_GROUP;
-        } else if (c == '=') {
-            controlToken = EQUALS;
+    public short[] getScalarsLength() {
+        if (scalarsLengthArray == null) {
+            scalarsLengthArray = scalarsLength.toArray();
         }
+        return scalarsLengthArray;
+    }
 
-        checkForNewControlToken(controlToken);
-        checkWhitespace(c);
+    public int getScalarCount() {
+        return scalarsStart.size();
     }
 
-    public byte[] getTokenTypes() {
-        return tokenTypes;
+    int getTokenCount() {
+        return tokenTypes.size();
     }
 
-    public int[] getArraySizes() {
-        return arraySizes;
+    int getArrayCount() {
+        return arraySizes.size();
     }
 
-    public int[] getScalarsStart() {
-        return scalarsStart;
+    int getArraySize(int arrayIndex) {
+        return arraySizes.get(arrayIndex);
     }
 
-    public short[] getScalarsLength() {
-        return scalarsLength;
+    void copyTokenTypes(byte[] dst, int dstOffset) {
+        tokenTypes.copyTo(0, dst, dstOffset, tokenTypes.size());
     }
 
-    public int getScalarCount() {
-        return scalarCounter;
+    void copyScalars(int[] startDst, short[] lengthDst, int dstOffset) {
+        scalarsStart.copyTo(0, startDst, dstOffset, scalarsStart.size());
+        scalarsLength.copyTo(0, lengthDst, dstOffset, scalarsLength.size());
+    }
+
+    void copyArraySizes(int from, int[] dst, int dstOffset, int length) {
+        arraySizes.copyTo(from, dst, dstOffset, length);
+    }
+
+    /**
+     * Returns the pages of a tokenizer whose results have been copied, see {@link PagePool}.
+     */
+    void release() {
+        tokenTypes.release();
+        scalarsStart.release();
+        scalarsLength.release();
+        arraySizes.release();
+    }
+
+    int[] getArraySizeStack() {
+        return arraySizeStack;
+    }
+
+    int getArraySizeStackSize() {
+        return arraySizeStackSize;
+    }
+
+    int[] getOuterArrays() {
+        return outerArrays;
+    }
+
+    int getOuterArrayCount() {
+        return outerArrayCount;
+    }
+
+    boolean isAmbiguous() {
+        return ambiguous;
+    }
+
+    boolean endsInQuotes() {
+        return isInQuotes;
     }
 }
@@ -0,0 +1,138 @@
+package com.crschnick.pdxu.io.parser;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The output of the tokenizer for an input, which can be parsed with {@link TextFormatParser#parse(TokenSnapshot)}
+ * any number of times. Since parsing does not modify the tokens, a snapshot can also be stored to skip
+ * tokenizing the same input again, see {@link #writeTokens(DataOutputStream)}.
+ * <p>
+ * A snapshot only refers to its input, which is always a byte array.
+ */
+public final class TokenSnapshot {
+
+    private static final int MAGIC = 0x50444B54;
+    private static final int WRITE_BUFFER_SIZE = 65536;
+    private static final int READ_BUFFER_SIZE = 65536;
+
+    private final byte[] bytes;
+    private final byte[] tokenTypes;
+    private final int[] arraySizes;
+    private final int[] scalarsStart;
+    private final short[] scalarsLength;
+    private final int scalarCount;
+
+    TokenSnapshot(byte[] bytes, byte[] tokenTypes, int[] arraySizes,
+                  int[] scalarsStart, short[] scalarsLength, int scalarCount) {
+        this.bytes = bytes;
+        this.tokenTypes = tokenTypes;
+        this.arraySizes = arraySizes;
+        this.scalarsStart = scalarsStart;
+        this.scalarsLength = scalarsLength;
+        this.scalarCount = scalarCount;
+    }
+
+    /**
+     * Reads tokens that were written with {@link #writeTokens(DataOutputStream)}. The tokens have to belong to the given input.
+     */
+    public static TokenSnapshot readTokens(DataInputStream in, byte[] bytes) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Invalid token snapshot");
+        }
+
+        int tokenCount = in.readInt();
+        int arrayCount = in.readInt();
+        int scalarCount = in.readInt();
+        // Every scalar starts at a different offset of the input, so the counts are bounded by its length
+        if (scalarCount < 0 || scalarCount > bytes.length || arrayCount < 0 || arrayCount > tokenCount ||
+                tokenCount < 0 || tokenCount > 2L * bytes.length + 2) {
+            throw new IOException("Invalid token snapshot");
+        }
+
+        var tokenTypes = new byte[tokenCount];
+        in.readFully(tokenTypes);
+
+        var b = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        var arraySizes = new int[arrayCount];
+        for (int i = 0; i < arrayCount; i += READ_BUFFER_SIZE / 4) {
+            int count = Math.min(READ_BUFFER_SIZE / 4, arrayCount - i);
+            in.readFully(b.array(), 0, 4 * count);
+            b.asIntBuffer().get(arraySizes, i, count);
+        }
+        var scalarsStart = new int[scalarCount];
+        for (int i = 0; i < scalarCount; i += READ_BUFFER_SIZE / 4) {
+            int count = Math.min(READ_BUFFER_SIZE / 4, scalarCount - i);
+            in.readFully(b.array(), 0, 4 * count);
+            b.asIntBuffer().get(scalarsStart, i, count);
+        }
+        var scalarsLength = new short[scalarCount];
+        for (int i = 0; i < scalarCount; i += READ_BUFFER_SIZE / 2) {
+            int count = Math.min(READ_BUFFER_SIZE / 2, scalarCount - i);
+            in.readFully(b.array(), 0, 2 * count);
+            b.asShortBuffer().get(scalarsLength, i, count);
+        }
+
+        if (scalarCount > 0 && scalarsStart[scalarCount - 1] + scalarsLength[scalarCount - 1] > bytes.length) {
+            throw new IOException("Token snapshot does not belong to input");
+        }
+        return new TokenSnapshot(bytes, tokenTypes, arraySizes, scalarsStart, scalarsLength, scalarCount);
+    }
+
+    /**
+     * Writes the tokens, but not the input itself.
+     */
+    public void writeTokens(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(tokenTypes.length);
+        out.writeInt(arraySizes.length);
+        out.writeInt(scalarCount);
+        out.write(tokenTypes);
+
+        var b = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        for (int i = 0; i < arraySizes.length; i += WRITE_BUFFER_SIZE / 4) {
+            int count = Math.min(WRITE_BUFFER_SIZE / 4, arraySizes.length - i);
+            b.asIntBuffer().put(arraySizes, i, count);
+            out.write(b.array(), 0, 4 * count);
+        }
+        for (int i = 0; i < scalarCount; i += WRITE_BUFFER_SIZE / 4) {
+            int count = Math.min(WRITE_BUFFER_SIZE / 4, scalarCount - i);
+            b.asIntBuffer().put(scalarsStart, i, count);
+            out.write(b.array(), 0, 4 * count);
+        }
+        for (int i = 0; i < scalarCount; i += WRITE_BUFFER_SIZE / 2) {
+            int count = Math.min(WRITE_BUFFER_SIZE / 2, scalarCount - i);
+            b.asShortBuffer().put(scalarsLength, i, count);
+            out.write(b.array(), 0, 2 * count);
+        }
+    }
+
+    /**
+     * Returns the input that the tokens belong to.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    byte[] getTokenTypes() {
+        return tokenTypes;
+    }
+
+    int[] getArraySizes() {
+        return arraySizes;
+    }
+
+    int[] getScalarsStart() {
+        return scalarsStart;
+    }
+
+    short[] getScalarsLength() {
+        return scalarsLength;
+    }
+
+    int getScalarCount() {
+        return scalarCount;
+    }
+}
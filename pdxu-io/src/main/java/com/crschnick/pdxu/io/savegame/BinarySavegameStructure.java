@@ -0,0 +1,146 @@
+package com.crschnick.pdxu.io.savegame;
+
+import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.NodeProjection;
+import com.crschnick.pdxu.io.parser.BinaryFormatFlavor;
+import com.crschnick.pdxu.io.parser.BinaryTokenDictionary;
+import com.crschnick.pdxu.io.parser.ParseException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads binary savegames of EU4, CK3 and HOI4 directly, without melting them into text first.
+ * The parsed nodes are the same as for the melted savegame. Binary savegames can not be written.
+ */
+public class BinarySavegameStructure implements SavegameStructure {
+
+    private static final byte[] EU4_HEADER = "EU4bin".getBytes();
+    private static final byte[] HOI4_HEADER = "HOI4bin".getBytes();
+    private static final Set<String> EU4_PARTS = Set.of("ai", "meta", "gamestate");
+
+    private final SavegameType type;
+    private final BinaryFormatFlavor flavor;
+    private final BinaryTokenDictionary dictionary;
+
+    public BinarySavegameStructure(SavegameType type, BinaryTokenDictionary dictionary) {
+        this.type = type;
+        this.flavor = getFlavor(type);
+        this.dictionary = dictionary;
+        if (flavor == null) {
+            throw new IllegalArgumentException("Binary savegames are not supported for this type");
+        }
+    }
+
+    /**
+     * Returns the binary format flavor used by a savegame type or null if it has no binary savegames.
+     */
+    public static BinaryFormatFlavor getFlavor(SavegameType type) {
+        if (type == SavegameType.EU4) {
+            return BinaryFormatFlavor.EU4;
+        }
+        if (type == SavegameType.CK3) {
+            return BinaryFormatFlavor.CK3;
+        }
+        if (type == SavegameType.HOI4) {
+            return BinaryFormatFlavor.HOI4;
+        }
+        return null;
+    }
+
+    private ArrayNode parsePart(byte[] bytes, int start, NodeProjection projection) throws ParseException {
+        return SavegameStructure.getParser(type, projection).parseBinary(bytes, start, flavor, dictionary);
+    }
+
+    private SavegameParseResult parseZip(byte[] input, int offset, byte[] header, Set<String> parts, NodeProjection projection) {
+        try (var zipIn = new ZipInputStream(new ByteArrayInputStream(input, offset, input.length - offset))) {
+            Map<String, ArrayNode> nodes = new HashMap<>();
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                if (!parts.contains(entry.getName())) {
+                    continue;
+                }
+
+                var bytes = zipIn.readAllBytes();
+                if (header != null && !SavegameStructure.validateHeader(header, bytes)) {
+                    return new SavegameParseResult.Invalid("File " + entry.getName() + " has an invalid header");
+                }
+
+                nodes.put(entry.getName(), parsePart(bytes, header != null ? header.length : 0, projection));
+            }
+
+            var missingParts = parts.stream()
+                    .filter(s -> !nodes.containsKey(s))
+                    .toList();
+            if (missingParts.size() > 0) {
+                return new SavegameParseResult.Invalid("Missing parts: " + String.join(", ", missingParts));
+            }
+
+            return new SavegameParseResult.Success(nodes);
+        } catch (Throwable t) {
+            return new SavegameParseResult.Error(t);
+        }
+    }
+
+    private SavegameParseResult parsePlain(byte[] input, byte[] header, NodeProjection projection) {
+        if (!SavegameStructure.validateHeader(header, input)) {
+            return new SavegameParseResult.Invalid("File gamestate has an invalid header");
+        }
+
+        try {
+            return new SavegameParseResult.Success(Map.of("gamestate", parsePart(input, header.length, projection)));
+        } catch (Throwable t) {
+            return new SavegameParseResult.Error(t);
+        }
+    }
+
+    private SavegameParseResult parseCk3(byte[] input, NodeProjection projection) {
+        Ck3Header header;
+        try {
+            header = Ck3Header.determineHeaderForFile(input);
+        } catch (Exception ex) {
+            return new SavegameParseResult.Invalid("File has an invalid header");
+        }
+
+        int metaStart = header.toString().length() + 1;
+        if (!header.compressed()) {
+            try {
+                return new SavegameParseResult.Success(Map.of("gamestate", parsePart(input, metaStart, projection)));
+            } catch (Throwable t) {
+                return new SavegameParseResult.Error(t);
+            }
+        }
+
+        int contentStart = Ck3CompressedSavegameStructure.indexOfCompressedGamestateStart(input);
+        if (contentStart == -1) {
+            return new SavegameParseResult.Invalid("Missing compressed gamestate");
+        }
+        return parseZip(input, contentStart, null, Set.of("gamestate"), projection);
+    }
+
+    @Override
+    public SavegameParseResult parse(byte[] input, NodeProjection projection) {
+        return switch (flavor) {
+            case EU4 -> type.isCompressed(input) ?
+                    parseZip(input, 0, EU4_HEADER, EU4_PARTS, projection) :
+                    parsePlain(input, EU4_HEADER, projection);
+            case CK3 -> parseCk3(input, projection);
+            case HOI4 -> parsePlain(input, HOI4_HEADER, projection);
+        };
+    }
+
+    @Override
+    public void write(Path out, Map<String, ArrayNode> nodes) {
+        throw new UnsupportedOperationException("Binary savegames can not be written");
+    }
+
+    @Override
+    public SavegameType getType() {
+        return type;
+    }
+}
@@ -1,8 +1,10 @@
 package com.crschnick.pdxu.io.savegame;
 
 import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.NodeProjection;
 import com.crschnick.pdxu.io.node.NodeWriter;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -10,8 +12,6 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 public class Ck3CompressedSavegameStructure extends ZipSavegameStructure {
 
@@ -44,23 +44,21 @@ public class Ck3CompressedSavegameStructure extends ZipSavegameStructure {
         ArrayNode meta = (ArrayNode) gamestate.getNodeForKey("meta_data");
         var metaHeaderNode = ArrayNode.singleKeyNode("meta_data", meta);
 
-        try (var out = Files.newOutputStream(file)) {
+        try (var out = new BufferedOutputStream(Files.newOutputStream(file), 1000000)) {
             var metaBytes = NodeWriter.writeToBytes(metaHeaderNode, Integer.MAX_VALUE, "\t");
 
             // Exclude trailing new line in meta length!
             String header = new Ck3Header(true, true, false, metaBytes.length).toString();
             out.write((header + "\n").getBytes(StandardCharsets.UTF_8));
             out.write(metaBytes);
-            try (var zout = new ZipOutputStream(out)) {
-                zout.putNextEntry(new ZipEntry("gamestate"));
-                NodeWriter.write(zout, StandardCharsets.UTF_8, gamestate, "\t", 0);
-                zout.closeEntry();
-            }
+            var writer = new ParallelZipWriter(out);
+            writer.putEntry("gamestate", null, gamestate, StandardCharsets.UTF_8, "\t");
+            writer.finish();
         }
     }
 
     @Override
-    public SavegameParseResult parse(byte[] input) {
+    public SavegameParseResult parse(byte[] input, NodeProjection projection, SavegameIndex.Builder index) {
         int contentStart;
         if (Ck3Header.skipsHeader(input)) {
             contentStart = indexOfCompressedGamestateStart(input);
@@ -82,6 +80,6 @@ public class Ck3CompressedSavegameStructure extends ZipSavegameStructure {
             contentStart = indexOfCompressedGamestateStart(input);
         }
 
-        return parseInput(input, contentStart);
+        return parseInput(input, contentStart, projection, index);
     }
 }
@@ -1,6 +1,7 @@
 package com.crschnick.pdxu.io.savegame;
 
 import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.NodeProjection;
 import com.crschnick.pdxu.io.node.NodeWriter;
 
 import java.io.IOException;
@@ -28,7 +29,12 @@ public class Ck3PlaintextSavegameStructure implements SavegameStructure {
     }
 
     @Override
-    public SavegameParseResult parse(byte[] input) {
+    public SavegameParseResult parse(byte[] input, NodeProjection projection) {
+        return parse(input, projection, null);
+    }
+
+    @Override
+    public SavegameParseResult parse(byte[] input, NodeProjection projection, SavegameIndex.Builder index) {
         int metaStart;
         if (Ck3Header.skipsHeader(input)) {
             metaStart = 0;
@@ -44,7 +50,7 @@ public class Ck3PlaintextSavegameStructure implements SavegameStructure {
             metaStart = header.toString().length() + 1;
         }
         try {
-            var node = getType().getParser().parse(input, metaStart);
+            var node = SavegameStructure.parsePart(getType(), projection, "gamestate", input, metaStart, index);
             return new SavegameParseResult.Success(Map.of("gamestate", node));
         } catch (Throwable t) {
             return new SavegameParseResult.Error(t);
@@ -0,0 +1,193 @@
+package com.crschnick.pdxu.io.savegame;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * An incremental 128-bit MurmurHash3 (x64 variant, seed 0) for detecting identical savegame contents.
+ * It is not a cryptographic hash, but is much faster than MD5 for large savegames.
+ * <p>
+ * With {@link #readFully(Path)}, a file is hashed in chunks while it is read,
+ * so that each chunk is hashed while it is still in the CPU cache.
+ */
+public final class ContentHash {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int READ_CHUNK_SIZE = 256 * 1024;
+
+    private final byte[] tail = new byte[16];
+    private int tailLength;
+    private long length;
+    private long h1;
+    private long h2;
+
+    public ContentHash() {
+    }
+
+    public static String toHexString(byte[] bytes) {
+        var c = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            c[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            c[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(c);
+    }
+
+    public static String hash(byte[] content) {
+        return new ContentHash().update(content, 0, content.length).digest();
+    }
+
+    public ContentHash update(byte[] b, int off, int len) {
+        length += len;
+        if (tailLength > 0) {
+            int n = Math.min(16 - tailLength, len);
+            System.arraycopy(b, off, tail, tailLength, n);
+            tailLength += n;
+            off += n;
+            len -= n;
+            if (tailLength < 16) {
+                return this;
+            }
+            mixBlock((long) LONG_VIEW.get(tail, 0), (long) LONG_VIEW.get(tail, 8));
+            tailLength = 0;
+        }
+
+        int end = off + (len & ~15);
+        for (; off < end; off += 16) {
+            mixBlock((long) LONG_VIEW.get(b, off), (long) LONG_VIEW.get(b, off + 8));
+        }
+        tailLength = len & 15;
+        System.arraycopy(b, off, tail, 0, tailLength);
+        return this;
+    }
+
+    /**
+     * Adds the content of a file to this hash without keeping it in memory.
+     */
+    public ContentHash update(Path file) throws IOException {
+        try (var in = Files.newInputStream(file)) {
+            var buffer = new byte[READ_CHUNK_SIZE];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                update(buffer, 0, n);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Reads a whole file and adds its content to this hash.
+     */
+    public byte[] readFully(Path file) throws IOException {
+        try (var in = Files.newInputStream(file)) {
+            long size = Files.size(file);
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File " + file + " is too large");
+            }
+
+            var bytes = new byte[(int) size];
+            int read = 0;
+            while (true) {
+                if (read == bytes.length) {
+                    // The file might have grown since its size was determined
+                    int next = in.read();
+                    if (next == -1) {
+                        break;
+                    }
+                    bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8, 2L * bytes.length + 1));
+                    bytes[read] = (byte) next;
+                    update(bytes, read, 1);
+                    read++;
+                    continue;
+                }
+
+                int n = in.read(bytes, read, Math.min(READ_CHUNK_SIZE, bytes.length - read));
+                if (n == -1) {
+                    break;
+                }
+                update(bytes, read, n);
+                read += n;
+            }
+            return read == bytes.length ? bytes : Arrays.copyOf(bytes, read);
+        }
+    }
+
+    /**
+     * Returns the hash of all added content as a hex string. More content can be added afterwards.
+     */
+    public String digest() {
+        long h1 = this.h1;
+        long h2 = this.h2;
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = tailLength - 1; i >= 8; i--) {
+            k2 ^= (tail[i] & 0xFFL) << ((i - 8) * 8);
+        }
+        for (int i = Math.min(tailLength, 8) - 1; i >= 0; i--) {
+            k1 ^= (tail[i] & 0xFFL) << (i * 8);
+        }
+        if (tailLength > 8) {
+            h2 ^= mixK2(k2);
+        }
+        if (tailLength > 0) {
+            h1 ^= mixK1(k1);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        var out = new byte[16];
+        LONG_VIEW.set(out, 0, h1);
+        LONG_VIEW.set(out, 8, h2);
+        return toHexString(out);
+    }
+
+    private void mixBlock(long k1, long k2) {
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
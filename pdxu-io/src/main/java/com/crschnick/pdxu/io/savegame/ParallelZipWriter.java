@@ -0,0 +1,257 @@
+package com.crschnick.pdxu.io.savegame;
+
+import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.NodeWriter;
+import com.crschnick.pdxu.io.node.NodeWriterImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a zip archive whose entries are serialized and compressed in parallel.
+ * <p>
+ * The content of an entry is split into blocks that are deflated independently, like pigz does.
+ * Every block is flushed to a byte boundary and uses the end of the previous block as dictionary,
+ * so the concatenated blocks form one regular deflate stream with almost the same compression ratio.
+ * The archive is written sequentially, so the output stream does not have to be seekable.
+ */
+final class ParallelZipWriter {
+
+    private static final int BLOCK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    // Top level nodes are serialized in groups of this many entries at most
+    private static final int MAX_CHUNK_ENTRIES = 64;
+    private static final int CHUNK_BUFFER_SIZE = 16 * 1024;
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int DIRECTORY_ENTRY = 0x02014b50;
+    private static final int END_OF_DIRECTORY = 0x06054b50;
+    private static final int VERSION = 20;
+    private static final int DATA_DESCRIPTOR_FLAG = 0x08;
+    private static final int DEFLATED = 8;
+
+    private final OutputStream out;
+    private final int window;
+    private final int dosTime;
+    private final List<WrittenEntry> entries = new ArrayList<>();
+    private long written;
+
+    ParallelZipWriter(OutputStream out) {
+        this.out = out;
+        this.window = Runtime.getRuntime().availableProcessors() * 2;
+        this.dosTime = toDosTime(LocalDateTime.now());
+    }
+
+    private static int toDosTime(LocalDateTime t) {
+        return (t.getYear() - 1980) << 25 | t.getMonthValue() << 21 | t.getDayOfMonth() << 16 |
+                t.getHour() << 11 | t.getMinute() << 5 | t.getSecond() >> 1;
+    }
+
+    /**
+     * Writes a node like {@link NodeWriter#write(OutputStream, Charset, ArrayNode, String, int)} as an entry.
+     * The top level entries of the node are serialized in parallel, preceded by an optional header.
+     */
+    void putEntry(String name, byte[] header, ArrayNode node, Charset charset, String indent) throws IOException {
+        int chunkEntries = Math.max(1, Math.min(MAX_CHUNK_ENTRIES, node.size() / (window * 4)));
+        int chunks = (node.size() + chunkEntries - 1) / chunkEntries;
+        putEntry(name, chunks + 1, i -> {
+            if (i == 0) {
+                return header != null ? header : new byte[0];
+            }
+
+            int begin = (i - 1) * chunkEntries;
+            var bytes = new ByteArrayOutputStream(BLOCK_SIZE);
+            try {
+                // A chunk is collected in memory anyway, so the writer only needs a small buffer
+                var writer = new NodeWriterImpl(bytes, charset, Integer.MAX_VALUE, indent, true, CHUNK_BUFFER_SIZE);
+                node.splice(begin, Math.min(chunkEntries, node.size() - begin)).writeTopLevel(writer);
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        });
+    }
+
+    /**
+     * Writes an entry whose content is the concatenation of all chunks.
+     * The chunks are created concurrently, but only a limited number of them is kept in memory at once.
+     */
+    void putEntry(String name, int chunkCount, IntFunction<byte[]> chunks) throws IOException {
+        var nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = written;
+        writeLocalHeader(nameBytes, DATA_DESCRIPTOR_FLAG, DEFLATED, 0, 0, 0);
+
+        var crc = new CRC32();
+        long size = 0;
+        long compressedSize = 0;
+        var serialized = new ArrayDeque<CompletableFuture<byte[]>>();
+        var compressed = new ArrayDeque<CompletableFuture<byte[]>>();
+        int nextChunk = 0;
+        byte[] previous = null;
+        int previousEnd = 0;
+        int previousLength = 0;
+        try {
+            while (nextChunk < chunkCount && serialized.size() < window) {
+                int c = nextChunk++;
+                serialized.add(CompletableFuture.supplyAsync(() -> chunks.apply(c)));
+            }
+
+            while (!serialized.isEmpty()) {
+                var data = serialized.poll().join();
+                if (nextChunk < chunkCount) {
+                    int c = nextChunk++;
+                    serialized.add(CompletableFuture.supplyAsync(() -> chunks.apply(c)));
+                }
+
+                crc.update(data);
+                size += data.length;
+                for (int start = 0; start < data.length; start += BLOCK_SIZE) {
+                    int length = Math.min(BLOCK_SIZE, data.length - start);
+                    int dictionaryLength = Math.min(DICTIONARY_SIZE, previousLength);
+                    var dictionary = previous;
+                    int dictionaryStart = previousEnd - dictionaryLength;
+                    int blockStart = start;
+                    compressed.add(CompletableFuture.supplyAsync(() ->
+                            deflateBlock(data, blockStart, length, dictionary, dictionaryStart, dictionaryLength)));
+
+                    previous = data;
+                    previousEnd = start + length;
+                    previousLength = length;
+
+                    while (compressed.size() > window) {
+                        compressedSize += write(compressed.poll().join());
+                    }
+                }
+            }
+            while (!compressed.isEmpty()) {
+                compressedSize += write(compressed.poll().join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException u) {
+                throw u.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+
+        // Terminate the stream with an empty final block
+        compressedSize += write(deflateBlock(new byte[0], 0, 0, null, 0, 0, true));
+        if (size >= 0xFFFFFFFFL || compressedSize >= 0xFFFFFFFFL || written >= 0xFFFFFFFFL) {
+            throw new IOException("Entry " + name + " is too large");
+        }
+
+        var descriptor = buffer(16);
+        descriptor.putInt(DATA_DESCRIPTOR).putInt((int) crc.getValue()).putInt((int) compressedSize).putInt((int) size);
+        write(descriptor.array());
+        entries.add(new WrittenEntry(nameBytes, DATA_DESCRIPTOR_FLAG, DEFLATED, (int) crc.getValue(), compressedSize, size, offset));
+    }
+
+    /**
+     * Copies an entry of another archive without inflating it.
+     */
+    void copyEntry(ZipDirectory directory, ZipDirectory.Entry entry) throws IOException {
+        var nameBytes = entry.name().getBytes(StandardCharsets.UTF_8);
+        long offset = written;
+        writeLocalHeader(nameBytes, 0, entry.method(), entry.crc(), entry.compressedSize(), entry.size());
+        written += entry.compressedSize();
+        out.write(directory.getInput(), entry.dataStart(), entry.compressedSize());
+        entries.add(new WrittenEntry(nameBytes, 0, entry.method(), entry.crc(), entry.compressedSize(), entry.size(), offset));
+    }
+
+    /**
+     * Writes the central directory. The output stream is not closed.
+     */
+    void finish() throws IOException {
+        long directoryStart = written;
+        for (var e : entries) {
+            var b = buffer(46);
+            b.putInt(DIRECTORY_ENTRY).putShort((short) VERSION).putShort((short) VERSION)
+                    .putShort((short) e.flags()).putShort((short) e.method()).putInt(dosTime)
+                    .putInt(e.crc()).putInt((int) e.compressedSize()).putInt((int) e.size())
+                    .putShort((short) e.name().length).putShort((short) 0).putShort((short) 0)
+                    .putShort((short) 0).putShort((short) 0).putInt(0).putInt((int) e.offset());
+            write(b.array());
+            write(e.name());
+        }
+
+        if (entries.size() > 0xFFFF || written >= 0xFFFFFFFFL) {
+            throw new IOException("Archive is too large");
+        }
+
+        var end = buffer(22);
+        end.putInt(END_OF_DIRECTORY).putShort((short) 0).putShort((short) 0)
+                .putShort((short) entries.size()).putShort((short) entries.size())
+                .putInt((int) (written - directoryStart)).putInt((int) directoryStart).putShort((short) 0);
+        write(end.array());
+        out.flush();
+    }
+
+    private void writeLocalHeader(byte[] name, int flags, int method, int crc, long compressedSize, long size) throws IOException {
+        var b = buffer(30);
+        b.putInt(LOCAL_HEADER).putShort((short) VERSION).putShort((short) flags).putShort((short) method)
+                .putInt(dosTime).putInt(crc).putInt((int) compressedSize).putInt((int) size)
+                .putShort((short) name.length).putShort((short) 0);
+        write(b.array());
+        write(name);
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private int write(byte[] b) throws IOException {
+        out.write(b);
+        written += b.length;
+        return b.length;
+    }
+
+    private static byte[] deflateBlock(byte[] data, int start, int length, byte[] dictionary, int dictionaryStart, int dictionaryLength) {
+        return deflateBlock(data, start, length, dictionary, dictionaryStart, dictionaryLength, false);
+    }
+
+    private static byte[] deflateBlock(byte[] data, int start, int length, byte[] dictionary, int dictionaryStart,
+                                       int dictionaryLength, boolean last) {
+        var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            if (dictionaryLength > 0) {
+                deflater.setDictionary(dictionary, dictionaryStart, dictionaryLength);
+            }
+            deflater.setInput(data, start, length);
+            if (last) {
+                deflater.finish();
+            }
+
+            var out = new ByteArrayOutputStream(length / 3 + 64);
+            var buffer = new byte[Math.max(length / 2, 1024)];
+            while (true) {
+                int n = last ? deflater.deflate(buffer) : deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                out.write(buffer, 0, n);
+                if (last ? deflater.finished() : n < buffer.length) {
+                    return out.toByteArray();
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private record WrittenEntry(byte[] name, int flags, int method, int crc, long compressedSize, long size, long offset) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.crschnick.pdxu.io.savegame;
 
 import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.NodeProjection;
 import com.crschnick.pdxu.io.parser.ParseException;
 
 import java.io.IOException;
@@ -32,13 +33,18 @@ public class PlaintextSavegameStructure implements SavegameStructure {
     }
 
     @Override
-    public SavegameParseResult parse(byte[] input) {
+    public SavegameParseResult parse(byte[] input, NodeProjection projection) {
+        return parse(input, projection, null);
+    }
+
+    @Override
+    public SavegameParseResult parse(byte[] input, NodeProjection projection, SavegameIndex.Builder index) {
         if (header != null && !SavegameStructure.validateHeader(header, input)) {
             return new SavegameParseResult.Invalid("File " + name + " has an invalid header");
         }
 
         try {
-            var node = type.getParser().parse(input, header != null ? header.length + 1 : 0);
+            var node = SavegameStructure.parsePart(type, projection, name, input, header != null ? header.length + 1 : 0, index);
             return new SavegameParseResult.Success(Map.of(name, node));
         } catch (ParseException e) {
             return new SavegameParseResult.Error(e);
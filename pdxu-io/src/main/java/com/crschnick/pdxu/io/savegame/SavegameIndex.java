@@ -0,0 +1,164 @@
+package com.crschnick.pdxu.io.savegame;
+
+import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.NodeProjection;
+import com.crschnick.pdxu.io.parser.TokenSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Stores the tokens of all parts of a savegame, so that the savegame can be parsed again without tokenizing it.
+ * Only savegames whose parts are all contained uncompressed in the savegame file are indexed. The index
+ * then only contains the tokens and refers to the savegame file for the data, so it is smaller than the savegame.
+ * Storing the inflated data of compressed parts would take up many times the size of the savegame itself.
+ * <p>
+ * An index belongs to the content checksum of a savegame and to the size and modification time of the savegame file.
+ * If one of them changes, the index is discarded.
+ */
+public final class SavegameIndex {
+
+    private static final int MAGIC = 0x50445849;
+    private static final int VERSION = 2;
+
+    /**
+     * Reads the index for a savegame file or returns an empty optional if the index is missing, invalid or outdated.
+     */
+    public static Optional<SavegameIndex> read(Path indexFile, Path savegameFile, String checksum) {
+        if (checksum == null || !Files.exists(indexFile) || !Files.exists(savegameFile)) {
+            return Optional.empty();
+        }
+
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile), 65536))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return Optional.empty();
+            }
+
+            if (!in.readUTF().equals(checksum) ||
+                    in.readLong() != Files.size(savegameFile) ||
+                    in.readLong() != Files.getLastModifiedTime(savegameFile).toMillis()) {
+                return Optional.empty();
+            }
+
+            var savegame = Files.readAllBytes(savegameFile);
+            Map<String, TokenSnapshot> parts = new HashMap<>();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                var name = in.readUTF();
+                parts.put(name, TokenSnapshot.readTokens(in, savegame));
+            }
+            return Optional.of(new SavegameIndex(parts));
+        } catch (Exception e) {
+            // An unreadable index is just rebuilt
+            return Optional.empty();
+        }
+    }
+
+    private final Map<String, TokenSnapshot> parts;
+
+    private SavegameIndex(Map<String, TokenSnapshot> parts) {
+        this.parts = parts;
+    }
+
+    /**
+     * Parses all parts from their stored tokens. The parts are parsed concurrently.
+     */
+    public SavegameParseResult parse(SavegameType type, NodeProjection projection) {
+        List<String> names = new ArrayList<>(parts.keySet());
+        var nodes = new ArrayNode[names.size()];
+        var errors = new Throwable[names.size()];
+        IntStream.range(0, names.size()).parallel().forEach(i -> {
+            try {
+                nodes[i] = SavegameStructure.getParser(type, projection).parse(parts.get(names.get(i)));
+            } catch (Throwable t) {
+                errors[i] = t;
+            }
+        });
+
+        Map<String, ArrayNode> content = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (errors[i] != null) {
+                return new SavegameParseResult.Error(errors[i]);
+            }
+            content.put(names.get(i), nodes[i]);
+        }
+        return new SavegameParseResult.Success(content);
+    }
+
+    /**
+     * Collects the tokens of the parts while a savegame is parsed. Parts can be added concurrently.
+     */
+    public static final class Builder {
+
+        private final byte[] savegame;
+        private final Map<String, TokenSnapshot> parts = new ConcurrentHashMap<>();
+        private volatile boolean compressed;
+
+        /**
+         * Creates a builder for the content of a savegame file.
+         */
+        public Builder(byte[] savegame) {
+            this.savegame = savegame;
+        }
+
+        /**
+         * Adds the tokens of a part. Tokens of a part that was not tokenized directly from the savegame content,
+         * e.g. an inflated zip entry, are dropped and the savegame is not indexed.
+         */
+        public void put(String part, TokenSnapshot tokens) {
+            if (tokens.getBytes() != savegame) {
+                compressed = true;
+                return;
+            }
+            parts.put(part, tokens);
+        }
+
+        /**
+         * Returns whether an index can be written, i.e. whether parts were added and none of them was compressed.
+         */
+        public boolean canWrite() {
+            return !compressed && !parts.isEmpty();
+        }
+
+        /**
+         * Writes the index for the savegame file, which has to contain the content that was passed to this builder.
+         */
+        public void write(Path indexFile, Path savegameFile, String checksum) throws IOException {
+            if (!canWrite()) {
+                throw new IllegalStateException("Savegame can not be indexed");
+            }
+
+            var temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1000000))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(checksum);
+                out.writeLong(Files.size(savegameFile));
+                out.writeLong(Files.getLastModifiedTime(savegameFile).toMillis());
+
+                out.writeInt(parts.size());
+                for (var e : parts.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    e.getValue().writeTokens(out);
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
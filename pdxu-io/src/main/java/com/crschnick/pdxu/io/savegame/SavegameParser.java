@@ -1,11 +1,8 @@
 package com.crschnick.pdxu.io.savegame;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 
 public abstract class SavegameParser {
 
@@ -16,20 +13,7 @@ public abstract class SavegameParser {
     }
 
     public String checksum(byte[] content) {
-        MessageDigest d = null;
-        try {
-            d = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("MD5 missing!");
-        }
-        d.update(content);
-        StringBuilder c = new StringBuilder();
-        ByteBuffer b = ByteBuffer.wrap(d.digest());
-        for (int i = 0; i < 16; i++) {
-            var hex = String.format("%02x", b.get());
-            c.append(hex);
-        }
-        return c.toString();
+        return ContentHash.hash(content);
     }
 
     @FunctionalInterface
@@ -0,0 +1,148 @@
+package com.crschnick.pdxu.io.savegame;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Determines the format of a savegame in a single pass over its first bytes.
+ * For compressed savegames, only the local header of the first zip entry and the first inflated bytes are read,
+ * so probing a savegame does not depend on its size.
+ */
+public record SavegameProbe(SavegameType type, boolean compressed, boolean binary, SavegameStructure structure) {
+
+    private static final int ZIP_LOCAL_HEADER = 0x04034b50;
+    private static final int ZIP_LOCAL_HEADER_LENGTH = 30;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    // Limits the compressed bytes handed to the inflater, which only has to produce the header
+    private static final int MAX_DEFLATE_INPUT = 4096;
+    private static final int HEADER_LENGTH = 9;
+
+    /**
+     * Returns the inflated first bytes of the first zip entry or null if the input does not start with a zip entry.
+     */
+    static byte[] readFirstEntryHeader(byte[] input, int offset, int maxLength) {
+        if (input.length - offset < ZIP_LOCAL_HEADER_LENGTH) {
+            return null;
+        }
+
+        var buffer = ByteBuffer.wrap(input).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(offset) != ZIP_LOCAL_HEADER) {
+            return null;
+        }
+
+        int method = buffer.getShort(offset + 8) & 0xFFFF;
+        int nameLength = buffer.getShort(offset + 26) & 0xFFFF;
+        int extraLength = buffer.getShort(offset + 28) & 0xFFFF;
+        int dataStart = offset + ZIP_LOCAL_HEADER_LENGTH + nameLength + extraLength;
+        if (dataStart > input.length) {
+            return null;
+        }
+
+        int available = input.length - dataStart;
+        if (method == STORED) {
+            return Arrays.copyOfRange(input, dataStart, dataStart + Math.min(maxLength, available));
+        }
+        if (method != DEFLATED) {
+            return null;
+        }
+
+        var inflater = new Inflater(true);
+        try {
+            inflater.setInput(input, dataStart, Math.min(available, MAX_DEFLATE_INPUT));
+            var header = new byte[maxLength];
+            int read = 0;
+            while (read < maxLength && !inflater.finished() && !inflater.needsInput()) {
+                read += inflater.inflate(header, read, maxLength - read);
+            }
+            return read < maxLength ? Arrays.copyOf(header, read) : header;
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static boolean startsWith(byte[] header, String prefix) {
+        return header.length >= prefix.length() &&
+                Arrays.equals(header, 0, prefix.length(), prefix.getBytes(), 0, prefix.length());
+    }
+
+    /**
+     * Detects the type of savegame from its content.
+     * Returns null if the type can not be determined, which is always the case for Stellaris and Vic2 savegames.
+     */
+    public static SavegameProbe probe(byte[] input) {
+        var zipHeader = readFirstEntryHeader(input, 0, HEADER_LENGTH);
+        var header = zipHeader != null ? zipHeader : Arrays.copyOf(input, Math.min(input.length, HEADER_LENGTH));
+        boolean zip = zipHeader != null;
+
+        if (startsWith(header, "EU4txt") || startsWith(header, "EU4bin")) {
+            return new SavegameProbe(SavegameType.EU4, zip, startsWith(header, "EU4bin"),
+                    zip ? SavegameStructure.EU4_COMPRESSED : SavegameStructure.EU4_PLAINTEXT);
+        }
+        if (startsWith(header, "HOI4txt") || startsWith(header, "HOI4bin")) {
+            return new SavegameProbe(SavegameType.HOI4, false, startsWith(header, "HOI4bin"), SavegameStructure.HOI4);
+        }
+        if (!zip && startsWith(header, "SAV0")) {
+            return probeCk3(input);
+        }
+        if (startsWith(header, "CK2txt")) {
+            return new SavegameProbe(SavegameType.CK2, zip,
+                    false, zip ? SavegameStructure.CK2_COMPRESSED : SavegameStructure.CK2_PLAINTEXT);
+        }
+        return null;
+    }
+
+    /**
+     * Determines the format of a savegame of a known type, e.g. one that was determined from the file ending.
+     * If the content does not match the type, the default format of the type is returned.
+     */
+    public static SavegameProbe probe(SavegameType type, byte[] input) {
+        if (type == SavegameType.STELLARIS) {
+            return new SavegameProbe(type, true, false, SavegameStructure.STELLARIS);
+        }
+        if (type == SavegameType.VIC2) {
+            return new SavegameProbe(type, false, false, SavegameStructure.VIC2);
+        }
+        if (type == SavegameType.CK3) {
+            var probe = probeCk3(input);
+            return probe != null ? probe : new SavegameProbe(type, false, false, SavegameStructure.CK3_PLAINTEXT);
+        }
+
+        var probe = probe(input);
+        if (probe != null && probe.type() == type) {
+            return probe;
+        }
+
+        boolean zip = readFirstEntryHeader(input, 0, 0) != null;
+        if (type == SavegameType.EU4) {
+            return new SavegameProbe(type, zip, false, zip ? SavegameStructure.EU4_COMPRESSED : SavegameStructure.EU4_PLAINTEXT);
+        }
+        if (type == SavegameType.CK2) {
+            return new SavegameProbe(type, zip, false, zip ? SavegameStructure.CK2_COMPRESSED : SavegameStructure.CK2_PLAINTEXT);
+        }
+        return new SavegameProbe(type, false, false, SavegameStructure.HOI4);
+    }
+
+    private static SavegameProbe probeCk3(byte[] input) {
+        if (Ck3Header.skipsHeader(input)) {
+            boolean compressed = Ck3CompressedSavegameStructure.indexOfCompressedGamestateStart(input) != -1;
+            return new SavegameProbe(SavegameType.CK3, compressed, false,
+                    compressed ? SavegameStructure.CK3_COMPRESSED : SavegameStructure.CK3_PLAINTEXT);
+        }
+
+        Ck3Header header;
+        try {
+            header = Ck3Header.determineHeaderForFile(input);
+        } catch (Exception e) {
+            return null;
+        }
+        return new SavegameProbe(SavegameType.CK3, header.compressed(), header.binary(),
+                header.compressed() ? SavegameStructure.CK3_COMPRESSED : SavegameStructure.CK3_PLAINTEXT);
+    }
+}
@@ -1,7 +1,10 @@
 package com.crschnick.pdxu.io.savegame;
 
 import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.NodeProjection;
 import com.crschnick.pdxu.io.node.NodeWriter;
+import com.crschnick.pdxu.io.parser.ParseException;
+import com.crschnick.pdxu.io.parser.TextFormatParser;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -91,13 +94,51 @@ public interface SavegameStructure {
         return Arrays.equals(first, header);
     }
 
+    /**
+     * Returns the parser for a projection. Projected results are only read, so they are stored on a tape.
+     */
+    static TextFormatParser getParser(SavegameType type, NodeProjection projection) {
+        return projection != null ? type.getParser().project(projection).tape() : type.getParser();
+    }
+
+    /**
+     * Parses a part of a savegame and puts its tokens into the index builder if there is one.
+     */
+    static ArrayNode parsePart(SavegameType type, NodeProjection projection, String name, byte[] input, int start,
+                               SavegameIndex.Builder index) throws ParseException {
+        var parser = getParser(type, projection);
+        if (index == null) {
+            return parser.parse(input, start);
+        }
+
+        var tokens = parser.tokenize(input, start);
+        index.put(name, tokens);
+        return parser.parse(tokens);
+    }
+
     void write(Path out, Map<String, ArrayNode> nodes) throws IOException;
 
     default void writeData(OutputStream out, ArrayNode node) throws IOException {
         NodeWriter.write(out, getType().getParser().getCharset(), node, "\t", 0);
     }
 
-    SavegameParseResult parse(byte[] input);
+    default SavegameParseResult parse(byte[] input) {
+        return parse(input, null);
+    }
+
+    /**
+     * Parses only the parts of the savegame that are contained in the projection.
+     * This is useful if only a few values, e.g. for the savegame info, are needed.
+     */
+    SavegameParseResult parse(byte[] input, NodeProjection projection);
+
+    /**
+     * Parses the savegame and also puts the tokens of all parts into an index builder.
+     * Structures that do not tokenize the input as text leave the builder empty.
+     */
+    default SavegameParseResult parse(byte[] input, NodeProjection projection, SavegameIndex.Builder index) {
+        return parse(input, projection);
+    }
 
     SavegameType getType();
 }
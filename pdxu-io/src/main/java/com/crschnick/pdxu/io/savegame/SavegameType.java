@@ -2,40 +2,25 @@ package com.crschnick.pdxu.io.savegame;
 
 import com.crschnick.pdxu.io.parser.TextFormatParser;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.zip.ZipInputStream;
 
 public interface SavegameType {
 
     SavegameType EU4 = new SavegameType() {
         @Override
         public boolean matchesInput(byte[] input) {
-            var header = ZipSavegameStructure.getFirstHeader(input, "meta", 6);
-            return Arrays.equals("EU4txt".getBytes(), header) ||
-                    Arrays.equals("EU4bin".getBytes(), header);
+            var probe = SavegameProbe.probe(input);
+            return probe != null && probe.type() == this;
         }
 
         @Override
         public SavegameStructure determineStructure(byte[] input) {
-            if (isCompressed(input)) {
-                return SavegameStructure.EU4_COMPRESSED;
-            } else {
-                return SavegameStructure.EU4_PLAINTEXT;
-            }
+            return probe(input).structure();
         }
 
         @Override
         public boolean isCompressed(byte[] input) {
-            try {
-                var zipIn = new ZipInputStream(new ByteArrayInputStream(input));
-                return zipIn.getNextEntry() != null;
-            } catch (IOException e) {
-                return false;
-            }
+            return probe(input).compressed();
         }
 
         @Override
@@ -45,19 +30,12 @@ public interface SavegameType {
 
         @Override
         public boolean isBinary(byte[] input) {
-            try {
-                var zipIn = new ZipInputStream(new ByteArrayInputStream(input));
-                zipIn.getNextEntry();
-                var header = zipIn.readNBytes(6);
-                return new String(header).equals("EU4bin");
-            } catch (IOException ex) {
-                return false;
-            }
+            return probe(input).binary();
         }
 
         @Override
         public TextFormatParser getParser() {
-            return TextFormatParser.eu4();
+            return TextFormatParser.eu4().parallel().lazy();
         }
     };
 
@@ -65,9 +43,8 @@ public interface SavegameType {
 
         @Override
         public boolean matchesInput(byte[] input) {
-            var header = ZipSavegameStructure.getFirstHeader(input, "meta", 7);
-            return Arrays.equals("HOI4txt".getBytes(), header) ||
-                    Arrays.equals("HOI4bin".getBytes(), header);
+            var probe = SavegameProbe.probe(input);
+            return probe != null && probe.type() == this;
         }
 
         @Override
@@ -87,13 +64,12 @@ public interface SavegameType {
 
         @Override
         public boolean isBinary(byte[] input) {
-            var header = Arrays.copyOfRange(input, 0, 7);
-            return new String(header).equals("HOI4bin");
+            return probe(input).binary();
         }
 
         @Override
         public TextFormatParser getParser() {
-            return TextFormatParser.hoi4();
+            return TextFormatParser.hoi4().parallel().lazy();
         }
     };
 
@@ -145,7 +121,7 @@ public interface SavegameType {
 
         @Override
         public TextFormatParser getParser() {
-            return TextFormatParser.ck3();
+            return TextFormatParser.ck3().parallel().lazy();
         }
     };
 
@@ -180,7 +156,7 @@ public interface SavegameType {
 
         @Override
         public TextFormatParser getParser() {
-            return TextFormatParser.stellaris();
+            return TextFormatParser.stellaris().parallel().lazy();
         }
     };
 
@@ -188,23 +164,18 @@ public interface SavegameType {
 
         @Override
         public boolean matchesInput(byte[] input) {
-            var header = ZipSavegameStructure.getFirstHeader(input, "meta", 6);
-            return Arrays.equals("CK2txt".getBytes(), header);
+            var probe = SavegameProbe.probe(input);
+            return probe != null && probe.type() == this;
         }
 
         @Override
         public SavegameStructure determineStructure(byte[] input) {
-            return isCompressed(input) ? SavegameStructure.CK2_COMPRESSED : SavegameStructure.CK2_PLAINTEXT;
+            return probe(input).structure();
         }
 
         @Override
         public boolean isCompressed(byte[] input) {
-            try {
-                var zipIn = new ZipInputStream(new ByteArrayInputStream(input));
-                return zipIn.getNextEntry() != null;
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
+            return probe(input).compressed();
         }
 
         @Override
@@ -219,7 +190,7 @@ public interface SavegameType {
 
         @Override
         public TextFormatParser getParser() {
-            return TextFormatParser.ck2();
+            return TextFormatParser.ck2().parallel().lazy();
         }
     };
 
@@ -253,7 +224,7 @@ public interface SavegameType {
 
         @Override
         public TextFormatParser getParser() {
-            return TextFormatParser.vic2();
+            return TextFormatParser.vic2().parallel().lazy();
         }
     };
 
@@ -272,17 +243,15 @@ public interface SavegameType {
     }
 
     static SavegameType getTypeForInput(byte[] input) {
-        for (var ft : SavegameType.class.getFields()) {
-            try {
-                SavegameType t = (SavegameType) ft.get(null);
-                if (t.matchesInput(input)) {
-                    return t;
-                }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
-        }
-        return null;
+        var probe = SavegameProbe.probe(input);
+        return probe != null ? probe.type() : null;
+    }
+
+    /**
+     * Determines the compression, binary flag and structure of a savegame of this type at once.
+     */
+    default SavegameProbe probe(byte[] input) {
+        return SavegameProbe.probe(this, input);
     }
 
     boolean matchesInput(byte[] input);
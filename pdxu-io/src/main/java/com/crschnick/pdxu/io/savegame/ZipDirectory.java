@@ -0,0 +1,158 @@
+package com.crschnick.pdxu.io.savegame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the central directory of a zip archive that is contained in a byte array,
+ * so that single entries can be inflated independently of each other and in any order.
+ * Zip64 archives are not supported.
+ */
+final class ZipDirectory {
+
+    private static final int END_OF_DIRECTORY = 0x06054b50;
+    private static final int END_OF_DIRECTORY_LENGTH = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final int DIRECTORY_ENTRY = 0x02014b50;
+    private static final int DIRECTORY_ENTRY_LENGTH = 46;
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+
+    private final byte[] input;
+    private final List<Entry> entries;
+
+    private ZipDirectory(byte[] input, List<Entry> entries) {
+        this.input = input;
+        this.entries = entries;
+    }
+
+    /**
+     * Reads the directory of the archive starting at the offset or returns null if it has no valid directory.
+     * The archive may be preceded by other data, e.g. the meta data of CK3 savegames.
+     */
+    static ZipDirectory read(byte[] input, int offset) {
+        var buffer = ByteBuffer.wrap(input).order(ByteOrder.LITTLE_ENDIAN);
+        int end = -1;
+        int minEnd = Math.max(offset, input.length - END_OF_DIRECTORY_LENGTH - MAX_COMMENT_LENGTH);
+        for (int i = input.length - END_OF_DIRECTORY_LENGTH; i >= minEnd; i--) {
+            if (buffer.getInt(i) == END_OF_DIRECTORY) {
+                end = i;
+                break;
+            }
+        }
+        if (end == -1) {
+            return null;
+        }
+
+        int count = buffer.getShort(end + 10) & 0xFFFF;
+        long directorySize = buffer.getInt(end + 12) & 0xFFFFFFFFL;
+        long directoryOffset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+        if (directorySize == ZIP64_MARKER || directoryOffset == ZIP64_MARKER || directorySize > end - offset) {
+            return null;
+        }
+
+        // Offsets are relative to the start of the archive, which is not necessarily the start of the input
+        int directoryStart = (int) (end - directorySize);
+        long shift = directoryStart - directoryOffset;
+        if (shift < 0) {
+            return null;
+        }
+
+        List<Entry> entries = new ArrayList<>(count);
+        int p = directoryStart;
+        for (int i = 0; i < count; i++) {
+            if (p + DIRECTORY_ENTRY_LENGTH > end || buffer.getInt(p) != DIRECTORY_ENTRY) {
+                return null;
+            }
+
+            int method = buffer.getShort(p + 10) & 0xFFFF;
+            int crc = buffer.getInt(p + 16);
+            long compressedSize = buffer.getInt(p + 20) & 0xFFFFFFFFL;
+            long size = buffer.getInt(p + 24) & 0xFFFFFFFFL;
+            int nameLength = buffer.getShort(p + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(p + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(p + 32) & 0xFFFF;
+            long localHeader = (buffer.getInt(p + 42) & 0xFFFFFFFFL) + shift;
+            if (compressedSize == ZIP64_MARKER || size >= Integer.MAX_VALUE - 8 || localHeader + LOCAL_HEADER_LENGTH > input.length) {
+                return null;
+            }
+            if (buffer.getInt((int) localHeader) != LOCAL_HEADER) {
+                return null;
+            }
+
+            var name = new String(input, p + DIRECTORY_ENTRY_LENGTH, nameLength, StandardCharsets.UTF_8);
+            int dataStart = (int) localHeader + LOCAL_HEADER_LENGTH +
+                    (buffer.getShort((int) localHeader + 26) & 0xFFFF) +
+                    (buffer.getShort((int) localHeader + 28) & 0xFFFF);
+            if (dataStart + compressedSize > input.length) {
+                return null;
+            }
+
+            entries.add(new Entry(name, method, crc, (int) compressedSize, (int) size, dataStart));
+            p += DIRECTORY_ENTRY_LENGTH + nameLength + extraLength + commentLength;
+        }
+        return new ZipDirectory(input, entries);
+    }
+
+    byte[] getInput() {
+        return input;
+    }
+
+    List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the content of an entry. This can be called concurrently for different entries.
+     */
+    byte[] readEntry(Entry entry) throws IOException {
+        byte[] content;
+        if (entry.method() == STORED) {
+            content = Arrays.copyOfRange(input, entry.dataStart(), entry.dataStart() + entry.size());
+        } else if (entry.method() == DEFLATED) {
+            content = new byte[entry.size()];
+            var inflater = new Inflater(true);
+            try {
+                inflater.setInput(input, entry.dataStart(), entry.compressedSize());
+                int read = 0;
+                while (read < content.length) {
+                    int n = inflater.inflate(content, read, content.length - read);
+                    if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                        break;
+                    }
+                    read += n;
+                }
+                if (read != content.length) {
+                    throw new IOException("Entry " + entry.name() + " is truncated");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Entry " + entry.name() + " is invalid", e);
+            } finally {
+                inflater.end();
+            }
+        } else {
+            throw new IOException("Unsupported compression method " + entry.method() + " of entry " + entry.name());
+        }
+
+        var crc = new CRC32();
+        crc.update(content);
+        if ((int) crc.getValue() != entry.crc()) {
+            throw new IOException("Invalid checksum of entry " + entry.name());
+        }
+        return content;
+    }
+
+    record Entry(String name, int method, int crc, int compressedSize, int size, int dataStart) {
+    }
+}
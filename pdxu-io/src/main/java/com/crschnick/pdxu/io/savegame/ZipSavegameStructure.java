@@ -1,34 +1,32 @@
 package com.crschnick.pdxu.io.savegame;
 
 import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.NodeProjection;
 import com.crschnick.pdxu.io.node.NodeWriter;
+import com.crschnick.pdxu.io.parser.ParseException;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 public class ZipSavegameStructure implements SavegameStructure {
 
-    public static byte[] getFirstHeader(byte[] input, String zipFile, int maxLength) {
-        try {
-            var zipIn = new ZipInputStream(new ByteArrayInputStream(input));
-            if (zipIn.getNextEntry() != null) {
-                return Arrays.copyOfRange(zipIn.readAllBytes(), 0, maxLength);
-            }
-        } catch (IOException ignored) {
-        }
-
-        return Arrays.copyOfRange(input, 0, maxLength);
-    }
-
     private final byte[] header;
     private final SavegameType type;
     private final Set<SavegamePart> parts;
@@ -41,58 +39,172 @@ public class ZipSavegameStructure implements SavegameStructure {
         this.ignored = ignored;
     }
 
-    protected SavegameParseResult parseInput(byte[] input, int offset) {
+    private Optional<SavegamePart> getPart(String entryName) {
+        // Skip ignored entries
+        if (Arrays.stream(ignored).anyMatch(s -> s.equals(entryName))) {
+            return Optional.empty();
+        }
+
         var wildcard = parts.stream()
                 .filter(p -> p.identifier().equals("*"))
                 .findAny();
+        return parts.stream()
+                .filter(p -> p.identifier().equals(entryName))
+                .findAny().or(() -> wildcard);
+    }
+
+    private SavegameParseResult parsePart(SavegamePart part, byte[] bytes, NodeProjection projection,
+                                          SavegameIndex.Builder index) throws ParseException {
+        if (header != null && !SavegameStructure.validateHeader(header, bytes)) {
+            return new SavegameParseResult.Invalid("File " + part.identifier() + " has an invalid header");
+        }
+
+        var node = SavegameStructure.parsePart(type, projection, part.name(), bytes, header != null ? header.length + 1 : 0, index);
+        return new SavegameParseResult.Success(Map.of(part.name(), node));
+    }
+
+    private SavegameParseResult combine(List<SavegameParseResult> results, Set<String> names) {
+        Map<String, ArrayNode> nodes = new HashMap<>();
+        for (var r : results) {
+            if (r.success().isEmpty()) {
+                return r;
+            }
+            nodes.putAll(r.success().get().content);
+        }
+
+        var missingParts = names.stream()
+                .filter(s -> !nodes.containsKey(s))
+                .toList();
+        if (missingParts.size() > 0) {
+            return new SavegameParseResult.Invalid("Missing parts: " + String.join(", ", missingParts));
+        }
+
+        return new SavegameParseResult.Success(nodes);
+    }
+
+    protected SavegameParseResult parseInput(byte[] input, int offset, NodeProjection projection, SavegameIndex.Builder index) {
+        return parseInput(input, offset, null, projection, index);
+    }
+
+    /**
+     * Parses the parts with the given names or all parts if names is null.
+     * The zip directory is used to inflate and parse all parts concurrently.
+     * If the input has no readable directory, the entries are read sequentially instead.
+     */
+    protected SavegameParseResult parseInput(byte[] input, int offset, Set<String> names, NodeProjection projection,
+                                             SavegameIndex.Builder index) {
+        var usedNames = names != null ? names : parts.stream().map(SavegamePart::name).collect(Collectors.toSet());
+        var directory = ZipDirectory.read(input, offset);
+        if (directory == null) {
+            return parseInputSequentially(input, offset, usedNames, projection, index);
+        }
+
+        List<ZipDirectory.Entry> entries = new ArrayList<>();
+        List<SavegamePart> entryParts = new ArrayList<>();
+        for (var entry : directory.getEntries()) {
+            var part = getPart(entry.name());
+            if (part.isPresent() && usedNames.contains(part.get().name())) {
+                entries.add(entry);
+                entryParts.add(part.get());
+            }
+        }
+
+        var results = new SavegameParseResult[entries.size()];
+        IntStream.range(0, entries.size()).parallel().forEach(i -> {
+            try {
+                results[i] = parsePart(entryParts.get(i), directory.readEntry(entries.get(i)), projection, index);
+            } catch (Throwable t) {
+                results[i] = new SavegameParseResult.Error(t);
+            }
+        });
+        return combine(Arrays.asList(results), usedNames);
+    }
 
+    private SavegameParseResult parseInputSequentially(byte[] input, int offset, Set<String> names, NodeProjection projection,
+                                                       SavegameIndex.Builder index) {
         try {
             try (var zipIn = new ZipInputStream(new ByteArrayInputStream(input, offset, input.length - offset))) {
-                Map<String, ArrayNode> nodes = new HashMap<>();
+                List<SavegameParseResult> results = new ArrayList<>();
                 ZipEntry entry;
                 while ((entry = zipIn.getNextEntry()) != null) {
-                    ZipEntry finalEntry = entry;
-
-                    // Skip ignored entries
-                    if (Arrays.stream(ignored).anyMatch(s -> s.equals(finalEntry.getName()))) {
-                        continue;
-                    }
-
-                    var part = parts.stream()
-                            .filter(p -> p.identifier().equals(finalEntry.getName()))
-                            .findAny().or(() -> wildcard);
+                    var part = getPart(entry.getName());
 
                     // Ignore unknown entry
-                    if (part.isEmpty()) {
+                    if (part.isEmpty() || !names.contains(part.get().name())) {
                         continue;
                     }
 
-                    var bytes = zipIn.readAllBytes();
-                    if (header != null && !SavegameStructure.validateHeader(header, bytes)) {
-                        return new SavegameParseResult.Invalid("File " + part.get().identifier() + " has an invalid header");
+                    var r = parsePart(part.get(), zipIn.readAllBytes(), projection, index);
+                    if (r.success().isEmpty()) {
+                        return r;
                     }
-
-                    var node = type.getParser().parse(bytes, header != null ? header.length + 1 : 0);
-                    nodes.put(part.get().name(), node);
+                    results.add(r);
                 }
-
-                var missingParts = parts.stream()
-                        .map(part -> part.name())
-                        .filter(s -> !nodes.containsKey(s))
-                        .toList();
-                if (missingParts.size() > 0) {
-                    return new SavegameParseResult.Invalid("Missing parts: " + String.join(", ", missingParts));
-                }
-
-                return new SavegameParseResult.Success(nodes);
+                return combine(results, names);
             }
         } catch (Throwable t) {
             return new SavegameParseResult.Error(t);
         }
     }
 
+    /**
+     * Parses only the parts with the given names, e.g. only the meta part.
+     * The other parts are neither inflated nor parsed.
+     */
+    public SavegameParseResult parseParts(byte[] input, Set<String> names, NodeProjection projection) {
+        return parseInput(input, 0, names, projection, null);
+    }
+
+    /**
+     * Writes all parts that are contained in the nodes into an archive. Other entries of an existing archive are kept.
+     * The parts are serialized and compressed in parallel.
+     */
     @Override
     public void write(Path out, Map<String, ArrayNode> nodes) throws IOException {
+        var existing = Files.exists(out) ? Files.readAllBytes(out) : null;
+        var directory = existing != null ? ZipDirectory.read(existing, 0) : null;
+        if (existing != null && directory == null) {
+            writeWithFileSystem(out, nodes);
+            return;
+        }
+
+        var temp = out.resolveSibling(out.getFileName() + ".tmp");
+        try (var fileOut = new BufferedOutputStream(Files.newOutputStream(temp), 1000000)) {
+            var writer = new ParallelZipWriter(fileOut);
+            Set<String> written = new HashSet<>();
+            if (directory != null) {
+                for (var entry : directory.getEntries()) {
+                    var usedPart = parts.stream()
+                            .filter(part -> part.identifier().equals(entry.name()) && nodes.containsKey(part.name()))
+                            .findAny();
+                    if (usedPart.isPresent()) {
+                        writePart(writer, usedPart.get(), nodes.get(usedPart.get().name()));
+                        written.add(usedPart.get().name());
+                    } else {
+                        writer.copyEntry(directory, entry);
+                    }
+                }
+            }
+
+            for (var part : parts) {
+                if (nodes.containsKey(part.name()) && !written.contains(part.name())) {
+                    writePart(writer, part, nodes.get(part.name()));
+                }
+            }
+            writer.finish();
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, out, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void writePart(ParallelZipWriter writer, SavegamePart part, ArrayNode node) throws IOException {
+        var headerBytes = header != null ? (new String(header) + "\n").getBytes() : null;
+        writer.putEntry(part.identifier(), headerBytes, node, type.getParser().getCharset(), "\t");
+    }
+
+    private void writeWithFileSystem(Path out, Map<String, ArrayNode> nodes) throws IOException {
         try (var fs = FileSystems.newFileSystem(out)) {
             for (var e : nodes.entrySet()) {
                 var usedPart = parts.stream()
@@ -115,8 +227,13 @@ public class ZipSavegameStructure implements SavegameStructure {
     }
 
     @Override
-    public SavegameParseResult parse(byte[] input) {
-        return parseInput(input, 0);
+    public SavegameParseResult parse(byte[] input, NodeProjection projection) {
+        return parse(input, projection, null);
+    }
+
+    @Override
+    public SavegameParseResult parse(byte[] input, NodeProjection projection, SavegameIndex.Builder index) {
+        return parseInput(input, 0, projection, index);
     }
 
     @Override
@@ -1,6 +1,7 @@
 package com.crschnick.pdxu.model.ck2;
 
 import com.crschnick.pdxu.io.node.Node;
+import com.crschnick.pdxu.io.node.NodeProjection;
 import com.crschnick.pdxu.model.*;
 
 import java.util.ArrayList;
@@ -12,6 +13,9 @@ import java.util.regex.Pattern;
 
 public class Ck2SavegameInfo extends SavegameInfo<Ck2Tag> {
 
+    public static final NodeProjection PROJECTION = NodeProjection.of(
+            "date", "player_realm", "player_name", "playthrough_id", "version");
+
     private Ck2Tag tag;
     private List<Ck2Tag> allTags;
     private GameVersion version;
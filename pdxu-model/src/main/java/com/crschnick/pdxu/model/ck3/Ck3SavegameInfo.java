@@ -1,6 +1,7 @@
 package com.crschnick.pdxu.model.ck3;
 
 import com.crschnick.pdxu.io.node.Node;
+import com.crschnick.pdxu.io.node.NodeProjection;
 import com.crschnick.pdxu.model.*;
 
 import java.util.ArrayList;
@@ -13,6 +14,17 @@ import java.util.stream.Collectors;
 
 public class Ck3SavegameInfo extends SavegameInfo<Ck3Tag> {
 
+    public static final NodeProjection PROJECTION = NodeProjection.of(
+            "meta_data", "date", "random_seed", "currently_played_characters",
+            "coat_of_arms/coat_of_arms_manager_database", "wars/active_wars", "relations/active_relations",
+            "landed_titles/landed_titles/*/name", "landed_titles/landed_titles/*/key",
+            "landed_titles/landed_titles/*/coat_of_arms_id", "landed_titles/landed_titles/*/color",
+            "living/*/dynasty_house", "living/*/birth", "living/*/skill", "living/*/first_name",
+            "living/*/landed_data/domain", "living/*/landed_data/government",
+            "living/*/landed_data/balance", "living/*/landed_data/strength",
+            "living/*/alive_data/gold", "living/*/alive_data/income", "living/*/alive_data/piety",
+            "living/*/alive_data/prestige", "living/*/alive_data/claim");
+
     protected Ck3Tag tag;
     protected List<Ck3Tag> allTags;
     private String playerName;
@@ -1,6 +1,7 @@
 package com.crschnick.pdxu.model.eu4;
 
 import com.crschnick.pdxu.io.node.Node;
+import com.crschnick.pdxu.io.node.NodeProjection;
 import com.crschnick.pdxu.model.*;
 
 import java.util.*;
@@ -10,6 +11,17 @@ import java.util.stream.Collectors;
 
 public class Eu4SavegameInfo extends SavegameInfo<Eu4Tag> {
 
+    public static final NodeProjection PROJECTION = NodeProjection.of(
+            "date", "player", "savegame_version", "mods_enabled_names", "mod_enabled", "dlc_enabled",
+            "not_observer", "is_random_new_world", "achievement_ok", "active_war", "diplomacy",
+            "countries/*/colors", "countries/*/name", "countries/*/colonial_parent",
+            "countries/*/custom_nation_points", "countries/*/has_switched_nation", "countries/*/decision_seed",
+            "countries/*/loan", "countries/*/treasury", "countries/*/manpower", "countries/*/max_manpower",
+            "countries/*/stability", "countries/*/powers", "countries/*/prestige",
+            "countries/*/raw_development", "countries/*/development", "countries/*/monarch", "countries/*/heir",
+            "countries/*/history/*/monarch_heir", "countries/*/history/*/monarch",
+            "countries/*/history/*/queen", "countries/*/history/*/heir");
+
     private final List<Eu4Tag> vassals = new ArrayList<>();
     private final List<Eu4Tag> allies = new ArrayList<>();
     private final List<Eu4Tag> marches = new ArrayList<>();
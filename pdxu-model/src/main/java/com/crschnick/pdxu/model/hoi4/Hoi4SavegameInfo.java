@@ -1,6 +1,7 @@
 package com.crschnick.pdxu.model.hoi4;
 
 import com.crschnick.pdxu.io.node.Node;
+import com.crschnick.pdxu.io.node.NodeProjection;
 import com.crschnick.pdxu.model.*;
 
 import java.util.List;
@@ -11,6 +12,9 @@ import java.util.stream.Collectors;
 
 public class Hoi4SavegameInfo extends SavegameInfo<Hoi4Tag> {
 
+    public static final NodeProjection PROJECTION = NodeProjection.of(
+            "player", "ideology", "date", "game_unique_id", "mods", "version");
+
     protected Hoi4Tag tag;
     protected List<Hoi4Tag> allTags;
     private GameNamedVersion version;
@@ -2,6 +2,7 @@ package com.crschnick.pdxu.model.stellaris;
 
 import com.crschnick.pdxu.io.node.Node;
 import com.crschnick.pdxu.io.node.NodePointer;
+import com.crschnick.pdxu.io.node.NodeProjection;
 import com.crschnick.pdxu.model.*;
 
 import java.util.ArrayList;
@@ -14,6 +15,9 @@ import java.util.stream.Collectors;
 
 public class StellarisSavegameInfo extends SavegameInfo<StellarisTag> {
 
+    public static final NodeProjection PROJECTION = NodeProjection.of(
+            "galaxy/ironman", "date", "random_seed", "country/*/flag", "country/*/name", "required_dlcs", "version");
+
     protected StellarisTag tag;
     protected List<StellarisTag> allTags;
     private GameNamedVersion version;